@@ -0,0 +1,25 @@
+#!/bin/sh
+#
+# Runs the JGUII benchmarks against a private Xvfb display.
+#
+# Build first with "mvn -B package" from the repository root (needs the Xlib
+# headers so libxwindowtools.so and xdummy are built). Any arguments are passed
+# to JMH, for example:
+#
+#   bench/run-benchmarks.sh WindowBenchmark -p clients=100
+#
+# Results are written as JSON to bench/target/jmh-result.json, or to the file
+# named by JMH_RESULT.
+
+set -e
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+RESULT=${JMH_RESULT:-$ROOT/bench/target/jmh-result.json}
+
+. "$ROOT/bench/xvfb.sh"
+
+java \
+	-Djava.library.path="$ROOT/core/target/native" \
+	-Djguii.xdummy="$ROOT/bench/target/native/xdummy" \
+	-jar "$ROOT/bench/target/benchmarks.jar" \
+	-rf json -rff "$RESULT" "$@"
@@ -0,0 +1,23 @@
+#!/bin/sh
+#
+# Soak tests the native window calls against a private Xvfb display and fails
+# if the resident set size of the JVM grows. Build first with "mvn -B package".
+#
+#   bench/run-soak.sh [iterations] [clients]
+#
+# Each iteration makes five native calls. The allowed growth in KiB can be
+# changed with SOAK_MAX_GROWTH.
+
+set -e
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+
+. "$ROOT/bench/xvfb.sh"
+
+# a fixed, pre-touched heap keeps the Java heap out of the RSS measurement, and
+# headless AWT keeps the toolkit's own X libraries out of the process
+java -Xms64m -Xmx64m -XX:+AlwaysPreTouch -Djava.awt.headless=true \
+	-Djava.library.path="$ROOT/core/target/native" \
+	-Djguii.xdummy="$ROOT/bench/target/native/xdummy" \
+	-Djguii.soak.maxGrowth="${SOAK_MAX_GROWTH:-4096}" \
+	-cp "$ROOT/bench/target/benchmarks.jar" com.joc.jguii.NativeSoak "$@"
@@ -0,0 +1,169 @@
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <X11/Xlib.h>
+#include <X11/Xatom.h>
+
+/*
+ * Dummy X clients for the benchmarks.
+ *
+ * Xvfb has no window manager, so nothing maintains the EWMH properties that
+ * xwindowtools reads. This program creates "count" named windows and then
+ * acts as a minimal window manager: it keeps _NET_CLIENT_LIST up to date for
+ * every top level window that is mapped (including ones started by other
+ * clients) and sets _NET_ACTIVE_WINDOW whenever one of them gains focus.
+ *
+ * Usage: xdummy <count> <prefix>
+ * Windows are named "<prefix>-0000", "<prefix>-0001", ...
+ * Prints "ready" on stdout once all windows are mapped and listed.
+ */
+
+#define MAX_CLIENTS 1024
+
+static Window clients[MAX_CLIENTS];
+static int nclients = 0;
+
+static Atom net_client_list;
+static Atom net_active_window;
+
+/*
+ * Writes the current client list to _NET_CLIENT_LIST on the root window
+ */
+static void publish_clients(Display *disp, Window root)
+{
+	XChangeProperty(disp, root, net_client_list, XA_WINDOW, 32, PropModeReplace,
+				(unsigned char *)clients, nclients);
+}
+
+/*
+ * Sets _NET_ACTIVE_WINDOW on the root window
+ */
+static void publish_active(Display *disp, Window root, Window window)
+{
+	XChangeProperty(disp, root, net_active_window, XA_WINDOW, 32, PropModeReplace,
+				(unsigned char *)&window, 1);
+}
+
+static int index_of(Window window)
+{
+	int i;
+	for(i = 0; i < nclients; i++)
+		if(clients[i] == window)
+			return i;
+	return -1;
+}
+
+static void add_client(Display *disp, Window root, Window window)
+{
+	if(index_of(window) != -1 || nclients == MAX_CLIENTS)
+		return;
+	clients[nclients++] = window;
+	XSelectInput(disp, window, FocusChangeMask | StructureNotifyMask);
+	publish_clients(disp, root);
+}
+
+static void remove_client(Display *disp, Window root, Window window)
+{
+	int i = index_of(window);
+	if(i == -1)
+		return;
+	memmove(&clients[i], &clients[i + 1], (nclients - i - 1) * sizeof(Window));
+	nclients--;
+	publish_clients(disp, root);
+}
+
+/*
+ * Ignore errors caused by windows that are destroyed before we select input on them
+ */
+static int ignore_errors(Display *disp, XErrorEvent *e)
+{
+	return 0;
+}
+
+int main(int argc, char **argv)
+{
+	Display *disp;
+	Window root, parent, *children, window, first = 0;
+	XWindowAttributes attrs;
+	XEvent ev;
+	unsigned int nchildren, i;
+	int count, mapped = 0;
+	char title[256];
+	const char *prefix;
+
+	if(argc < 3){
+		fprintf(stderr, "usage: %s <count> <prefix>\n", argv[0]);
+		return 1;
+	}
+	count = atoi(argv[1]);
+	prefix = argv[2];
+	if(count < 1 || count > MAX_CLIENTS){
+		fprintf(stderr, "count must be between 1 and %d\n", MAX_CLIENTS);
+		return 1;
+	}
+
+	if((disp = XOpenDisplay(NULL)) == NULL){
+		fprintf(stderr, "cannot open display\n");
+		return 1;
+	}
+	XSetErrorHandler(ignore_errors);
+	root = XDefaultRootWindow(disp);
+	net_client_list = XInternAtom(disp, "_NET_CLIENT_LIST", False);
+	net_active_window = XInternAtom(disp, "_NET_ACTIVE_WINDOW", False);
+
+	XSelectInput(disp, root, SubstructureNotifyMask);
+
+	/* pick up windows that were mapped before we started */
+	if(XQueryTree(disp, root, &root, &parent, &children, &nchildren)){
+		for(i = 0; i < nchildren; i++)
+			if(XGetWindowAttributes(disp, children[i], &attrs) && attrs.map_state == IsViewable
+					&& !attrs.override_redirect)
+				add_client(disp, root, children[i]);
+		if(children)
+			XFree(children);
+	}
+
+	/* the first window is big enough to click and type in, the rest are small */
+	for(i = 0; i < (unsigned int)count; i++){
+		window = XCreateSimpleWindow(disp, root, i == 0 ? 0 : 10 * (i % 64), i == 0 ? 0 : 10 * (i / 64),
+					i == 0 ? 640 : 8, i == 0 ? 480 : 8, 0, 0, 0xffffff);
+		snprintf(title, sizeof(title), "%s-%04u", prefix, i);
+		XStoreName(disp, window, title);
+		XSelectInput(disp, window, ExposureMask | KeyPressMask | ButtonPressMask);
+		XMapWindow(disp, window);
+		if(i == 0)
+			first = window;
+	}
+
+	for(;;){
+		XNextEvent(disp, &ev);
+		switch(ev.type){
+		case MapNotify:
+			if(ev.xmap.event != root || ev.xmap.override_redirect)
+				break;
+			add_client(disp, root, ev.xmap.window);
+			/* our own windows get consecutive ids starting at first */
+			if(ev.xmap.window >= first && ev.xmap.window < first + count && ++mapped == count){
+				XSetInputFocus(disp, first, RevertToParent, CurrentTime);
+				publish_active(disp, root, first);
+				XSync(disp, False);
+				printf("ready\n");
+				fflush(stdout);
+			}
+			break;
+		case UnmapNotify:
+			if(ev.xunmap.event == root)
+				remove_client(disp, root, ev.xunmap.window);
+			break;
+		case DestroyNotify:
+			if(ev.xdestroywindow.event == root)
+				remove_client(disp, root, ev.xdestroywindow.window);
+			break;
+		case FocusIn:
+			if(ev.xfocus.detail != NotifyInferior && index_of(ev.xfocus.window) != -1)
+				publish_active(disp, root, ev.xfocus.window);
+			break;
+		}
+	}
+	return 0;
+}
@@ -0,0 +1,58 @@
+package com.joc.jguii;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks parsing of config files by {@link ConfigHandler#updateConfig()}.
+ * <p>
+ * A {@link ConfigHandler} can only read its file once, so each call constructs
+ * a new one, which opens the file and calls <code>updateConfig()</code>.
+ * Does not need an X server.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigBenchmark {
+	/**
+	 * Number of applications in the config file.
+	 */
+	@Param({"1", "16", "256"})
+	public int apps;
+	/**
+	 * Number of points per application.
+	 */
+	@Param({"4", "64"})
+	public int points;
+
+	private File config;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception{
+		config = XHarness.writeConfig(apps, points);
+	}
+
+	@Benchmark
+	public ConfigHandler updateConfig() throws Exception{
+		ConfigHandler reader = new ConfigHandler(config.getPath());
+		reader.close();
+		return reader;
+	}
+}
@@ -0,0 +1,74 @@
+package com.joc.jguii;
+
+import java.awt.Point;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.joc.jguii.backend.X11WindowBackend;
+
+/**
+ * Benchmarks the dummy input produced by {@link InteractionHandler}.
+ * <p>
+ * Input is sent to a single focused dummy window through the XTEST extension of Xvfb.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InputBenchmark {
+	/**
+	 * Number of characters typed per call.
+	 */
+	@Param({"1", "16", "256"})
+	public int length;
+
+	private Process dummies;
+	private InteractionHandler ih;
+	private String text;
+	private Point point;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception{
+		dummies = XHarness.startClients(1);
+		ih = new InteractionHandler();
+		StringBuilder sb = new StringBuilder(length);
+		for(int i = 0; i < length; i++)
+			sb.append((char)('a' + i % 26));
+		text = sb.toString();
+		point = new NamedPoint(320, 240, "centre");
+
+		X11WindowBackend windows = new X11WindowBackend();
+		windows.setWindowFocus(windows.windowSearch(XHarness.title(0)));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown(){
+		XHarness.stop(dummies);
+	}
+
+	@Benchmark
+	public void type(){
+		ih.type(text, false);
+	}
+
+	@Benchmark
+	public void leftClick(){
+		ih.leftClick(point);
+	}
+}
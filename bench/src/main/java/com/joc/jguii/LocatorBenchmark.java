@@ -0,0 +1,80 @@
+package com.joc.jguii;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.joc.jguii.locate.GrayImage;
+import com.joc.jguii.locate.Match;
+import com.joc.jguii.locate.TemplateLocator;
+
+/**
+ * Benchmarks finding a 64x48 reference image in a full HD capture.
+ * <p>
+ * The capture is random rectangles and text, which is closer to a real
+ * window than noise. Compares the scalar and Vector API kernels.
+ * Does not need an X server.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class LocatorBenchmark {
+	/**
+	 * Whether {@link TemplateLocator} may use the Vector API.
+	 */
+	@Param({"true", "false"})
+	public String simd;
+
+	private TemplateLocator locator;
+	private GrayImage capture;
+	private GrayImage template;
+
+	@Setup(Level.Trial)
+	public void setup(){
+		System.setProperty("jguii.simd", simd);
+		locator = new TemplateLocator();
+		if(locator.isVectorized() != Boolean.parseBoolean(simd))
+			throw new IllegalStateException("jdk.incubator.vector is not available");
+
+		Random r = new Random(42);
+		BufferedImage img = new BufferedImage(1920, 1080, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = img.createGraphics();
+		for(int i = 0; i < 3000; i++){
+			g.setColor(new Color(r.nextInt(0xffffff)));
+			g.fillRect(r.nextInt(1920), r.nextInt(1080), 4 + r.nextInt(80), 4 + r.nextInt(40));
+		}
+		g.setColor(Color.BLACK);
+		for(int i = 0; i < 400; i++)
+			g.drawString("Label " + i, r.nextInt(1900), r.nextInt(1070));
+		g.dispose();
+		capture = GrayImage.of(img);
+		template = GrayImage.of(img.getSubimage(1234, 567, 64, 48));
+		Match m = locator.locate(capture, template);
+		if(m == null || m.getX() != 1234 || m.getY() != 567)
+			throw new IllegalStateException("template found at the wrong place: " + m);
+	}
+
+	@Benchmark
+	public Match locate(){
+		return locator.locate(capture, template);
+	}
+}
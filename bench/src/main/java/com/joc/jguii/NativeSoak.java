@@ -0,0 +1,108 @@
+package com.joc.jguii;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import com.joc.jguii.backend.X11WindowBackend;
+
+/**
+ * Soak test of the native window calls, checking they do not leak.
+ * <p>
+ * Calls <code>windowSearch</code> (a hit and a miss), <code>setWindowFocus</code>,
+ * <code>getWindowFocus</code> and <code>getWindowBounds</code> in a loop
+ * against dummy clients on Xvfb, sampling the resident set size of the process.
+ * The first tenth of the run is warm up. Fails with exit status 1 if RSS grows by
+ * more than <code>jguii.soak.maxGrowth</code> KiB (4096 by default) after that, or
+ * by more than a quarter of it over the second half of the run, which catches a
+ * slow leak that would only pass the first check because the run was short.
+ * Any error, such as a wrong search result, also fails with exit status 1.
+ * Run through <code>run-soak.sh</code>, which fixes the heap size so the Java heap
+ * does not show up as growth.
+ * </p>
+ * <pre>
+ * bench/run-soak.sh [iterations] [clients]
+ * </pre>
+ */
+public final class NativeSoak {
+	/**
+	 * Number of RSS samples taken after warm up.
+	 */
+	private static final int SAMPLES = 20;
+
+	private NativeSoak(){
+	}
+
+	public static void main(String[] args) throws IOException{
+		long iterations = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+		int clients = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		long maxGrowth = Long.getLong("jguii.soak.maxGrowth", 4096);
+		boolean passed = false;
+		Process dummies = clients > 0 ? XHarness.startClients(clients) : null;
+		try{
+			passed = run(iterations, Math.max(clients, 1), maxGrowth);
+		}catch(RuntimeException e){
+			e.printStackTrace();
+		}finally{
+			XHarness.stop(dummies);
+		}
+		System.out.println(passed ? "PASS" : "FAIL");
+		System.exit(passed ? 0 : 1);
+	}
+
+	/**
+	 * @return True if RSS stayed within <code>maxGrowth</code> KiB.
+	 */
+	private static boolean run(long iterations, int clients, long maxGrowth) throws IOException{
+		X11WindowBackend windows = new X11WindowBackend();
+		String hit = XHarness.title(clients - 1);
+		String miss = XHarness.PREFIX + "-missing";
+		int first = windows.windowSearch(XHarness.title(0));
+		if(first == -1 || windows.windowSearch(hit) == -1)
+			throw new IllegalStateException("dummy windows not found");
+
+		long warmup = iterations / 10;
+		long step = Math.max(1, (iterations - warmup) / SAMPLES);
+		long baseline = -1, max = 0, middle = -1, last = 0;
+		long start = System.nanoTime();
+		for(long i = 0; i < iterations; i++){
+			if(windows.windowSearch(hit) == -1 || windows.windowSearch(miss) != -1)
+				throw new IllegalStateException("windowSearch returned the wrong window at iteration " + i);
+			windows.setWindowFocus(first);
+			windows.getWindowFocus();
+			windows.getWindowBounds(first);
+			if(i + 1 == warmup || (i + 1 > warmup && (i + 1 - warmup) % step == 0) || i + 1 == iterations){
+				long rss = rss();
+				if(baseline == -1)
+					baseline = rss;
+				max = Math.max(max, rss);
+				if(middle == -1 && i + 1 >= warmup + (iterations - warmup) / 2)
+					middle = rss;
+				last = rss;
+				System.out.printf("%,12d iterations  rss %,8d KiB  %+,6d KiB%n", i + 1, rss, rss - baseline);
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%,d native calls in %.1f s, rss grew by at most %,d KiB%n", iterations * 5, seconds, max - baseline);
+		if(max - baseline > maxGrowth){
+			System.out.printf("rss grew by more than %,d KiB%n", maxGrowth);
+			return false;
+		}
+		if(last - middle > maxGrowth / 4){
+			System.out.printf("rss grew by %,d KiB over the second half, still rising%n", last - middle);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the resident set size of this process.
+	 * @return VmRSS from <code>/proc/self/status</code> in KiB.
+	 */
+	private static long rss() throws IOException{
+		for(String line : Files.readAllLines(Paths.get("/proc/self/status")))
+			if(line.startsWith("VmRSS:"))
+				return Long.parseLong(line.substring(6).trim().split("\\s+")[0]);
+		throw new IOException("VmRSS not found in /proc/self/status");
+	}
+}
@@ -0,0 +1,103 @@
+package com.joc.jguii;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.joc.jguii.backend.X11WindowBackend;
+
+/**
+ * Benchmarks {@link ApplicationHandler#open(String)}.
+ * <p>
+ * <code>openFocused</code> opens an Application that is already open, which only
+ * focuses it. <code>openCold</code> starts <code>/usr/bin/&lt;app&gt;</code> and waits
+ * for its window to appear, so it is measured once per invocation and the
+ * Application is closed in between. Both need the binary named by <code>app</code>
+ * to be installed.
+ * </p>
+ */
+@Fork(1)
+public class OpenBenchmark {
+	/**
+	 * An {@link ApplicationHandler} with a single Application that is open.
+	 */
+	@State(Scope.Benchmark)
+	public static class Opened {
+		/**
+		 * Application to open, must be in /usr/bin and have its name in its window title.
+		 */
+		@Param({"xlogo"})
+		public String app;
+
+		Process dummies;
+		ApplicationHandler handler;
+		X11WindowBackend windows = new X11WindowBackend();
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception{
+			if(!new File("/usr/bin/" + app).canExecute())
+				throw new IllegalStateException("/usr/bin/" + app + " is not installed");
+			dummies = XHarness.startClients(1);
+			ArrayList<String> names = new ArrayList<String>();
+			names.add(app);
+			handler = new ApplicationHandler(XHarness.writeConfig(names, 1).getPath());
+			handler.open(app);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown(){
+			handler.close(app);
+			XHarness.stop(dummies);
+		}
+	}
+
+	/**
+	 * Like {@link Opened} but closes the Application before every invocation.
+	 */
+	public static class Closed extends Opened {
+		/**
+		 * Closes the Application and waits for its window to go away.
+		 * @throws InterruptedException If interrupted while waiting.
+		 */
+		@Setup(Level.Invocation)
+		public void close() throws InterruptedException{
+			if(!handler.isOpen(app))
+				return;
+			handler.close(app);
+			while(windows.windowSearch(app) != -1)
+				Thread.sleep(10);
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 2)
+	@Measurement(iterations = 10)
+	public void openCold(Closed state){
+		state.handler.open(state.app);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 3, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public void openFocused(Opened state){
+		state.handler.open(state.app);
+	}
+}
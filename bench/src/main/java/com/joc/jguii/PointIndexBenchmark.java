@@ -0,0 +1,121 @@
+package com.joc.jguii;
+
+import java.awt.Rectangle;
+import java.awt.event.InputEvent;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.joc.jguii.backend.SimulatedBackendProvider;
+import com.joc.jguii.backend.SimulatedDesktop;
+
+/**
+ * Benchmarks mapping screen positions back to {@link NamedPoint}s.
+ * <p>
+ * Compares {@link PointIndex} with a linear scan over the points, and measures
+ * {@link ClickRecorder} turning clicks into script lines on a {@link SimulatedDesktop}.
+ * A third of the points have boxes. Does not need an X server.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PointIndexBenchmark {
+	/**
+	 * Number of points in the Application.
+	 */
+	@Param({"16", "256", "4096"})
+	public int points;
+
+	private ArrayList<NamedPoint> list;
+	private PointIndex index;
+	private int queries[];
+	private int next;
+
+	private SimulatedDesktop desktop;
+	private ClickRecorder recorder;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception{
+		Random r = new Random(7);
+		list = new ArrayList<NamedPoint>();
+		for(int i = 0; i < points; i++){
+			NamedPoint p = new NamedPoint(r.nextInt(1920), r.nextInt(1080), "point" + i);
+			if(i % 3 == 0)
+				p.setBox(new Rectangle(p.x - 10, p.y - 8, 20 + r.nextInt(60), 16 + r.nextInt(20)));
+			list.add(p);
+		}
+		index = new PointIndex(list);
+		queries = new int[2 * 1024];
+		for(int i = 0; i < queries.length; i += 2){
+			queries[i] = r.nextInt(1920);
+			queries[i + 1] = r.nextInt(1080);
+		}
+
+		desktop = new SimulatedDesktop();
+		desktop.setLogCapacity(0);
+		ApplicationHandler handler = new ApplicationHandler(XHarness.writeConfig(1, points).getPath(),
+				new SimulatedBackendProvider(desktop));
+		handler.open(0);
+		desktop.setWindowBounds(desktop.getWindowFocus(), new Rectangle(0, 0, 1920, 1080));
+		recorder = new ClickRecorder(handler, Writer.nullWriter());
+		recorder.start();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown(){
+		recorder.close();
+	}
+
+	@Benchmark
+	public NamedPoint nearest(){
+		int i = next++ & 1023;
+		return index.nearest(queries[2 * i], queries[2 * i + 1]);
+	}
+
+	@Benchmark
+	public NamedPoint pointAt(){
+		int i = next++ & 1023;
+		return index.pointAt(queries[2 * i], queries[2 * i + 1]);
+	}
+
+	@Benchmark
+	public NamedPoint linearNearest(){
+		int i = next++ & 1023;
+		int x = queries[2 * i], y = queries[2 * i + 1];
+		NamedPoint best = null;
+		long bestDist = Long.MAX_VALUE;
+		for(NamedPoint p : list){
+			long dx = x - p.x, dy = y - p.y;
+			if(dx * dx + dy * dy < bestDist){
+				bestDist = dx * dx + dy * dy;
+				best = p;
+			}
+		}
+		return best;
+	}
+
+	@Benchmark
+	public void recordClick(){
+		int i = next++ & 1023;
+		recorder.click(0, queries[2 * i], queries[2 * i + 1], InputEvent.BUTTON1_DOWN_MASK);
+	}
+}
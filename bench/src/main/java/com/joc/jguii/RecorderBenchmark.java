@@ -0,0 +1,45 @@
+package com.joc.jguii;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.joc.jguii.recorder.FlightRecorder;
+import com.joc.jguii.recorder.RecordType;
+
+/**
+ * Benchmarks writing to the {@link FlightRecorder}, alone and from several threads.
+ * <p>
+ * Run with <code>-prof gc</code> to check that recording does not allocate.
+ * Does not need an X server.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecorderBenchmark {
+	private int x;
+
+	@Benchmark
+	public void record(){
+		FlightRecorder.record(RecordType.MOUSE_MOVE, 1, x++, 0);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void recordContended(){
+		FlightRecorder.record(RecordType.MOUSE_MOVE, 1, 0, 0);
+	}
+}
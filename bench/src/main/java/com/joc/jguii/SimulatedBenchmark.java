@@ -0,0 +1,77 @@
+package com.joc.jguii;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.joc.jguii.backend.SimulatedBackendProvider;
+import com.joc.jguii.backend.SimulatedDesktop;
+
+/**
+ * Benchmarks the Java side of {@link ApplicationHandler} on a {@link SimulatedDesktop}.
+ * <p>
+ * The simulated desktop has no latency, so these measure only JGUII's own
+ * lookups and bookkeeping. Does not need an X server.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulatedBenchmark {
+	/**
+	 * Number of Applications in the config file, all of them open.
+	 */
+	@Param({"1", "16", "256"})
+	public int apps;
+
+	private ApplicationHandler handler;
+	private String lastApp;
+	private boolean flip;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception{
+		SimulatedDesktop desktop = new SimulatedDesktop();
+		desktop.setLogCapacity(0);
+		handler = new ApplicationHandler(XHarness.writeConfig(apps, 4).getPath(), new SimulatedBackendProvider(desktop));
+		for(int i = 0; i < apps; i++)
+			handler.open(i);
+		lastApp = XHarness.title(apps - 1);
+	}
+
+	@Benchmark
+	public void openFocused(){
+		handler.open(lastApp);
+	}
+
+	/**
+	 * Alternates focus between the first and last Application.
+	 */
+	@Benchmark
+	public void focus(){
+		handler.focus((flip = !flip) ? apps - 1 : 0);
+	}
+
+	@Benchmark
+	public void leftClick(){
+		handler.leftClick("point3");
+	}
+
+	@Benchmark
+	public void typeInBox(){
+		handler.typeInBox("point3", "jguii", true);
+	}
+}
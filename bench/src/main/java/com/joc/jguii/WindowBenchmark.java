@@ -0,0 +1,85 @@
+package com.joc.jguii;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.joc.jguii.backend.X11WindowBackend;
+
+/**
+ * Benchmarks the native window calls in xwindowtools.
+ * <p>
+ * <code>windowSearch</code> walks <code>_NET_CLIENT_LIST</code> and fetches the title
+ * of every window until one matches, so it is measured against a varying number of
+ * dummy clients, both for the last window in the list and for a title that is not there.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WindowBenchmark {
+	/**
+	 * Number of dummy windows in the client list.
+	 */
+	@Param({"1", "10", "100", "1000"})
+	public int clients;
+
+	private Process dummies;
+	private X11WindowBackend windows;
+	private int first;
+	private int last;
+	private String lastTitle;
+	private boolean flip;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception{
+		dummies = XHarness.startClients(clients);
+		windows = new X11WindowBackend();
+		lastTitle = XHarness.title(clients - 1);
+		first = windows.windowSearch(XHarness.title(0));
+		last = windows.windowSearch(lastTitle);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown(){
+		XHarness.stop(dummies);
+	}
+
+	@Benchmark
+	public int windowSearchLast(){
+		return windows.windowSearch(lastTitle);
+	}
+
+	@Benchmark
+	public int windowSearchMissing(){
+		return windows.windowSearch("jguii-not-a-window");
+	}
+
+	/**
+	 * Alternates focus between the first and last window so every call changes focus.
+	 */
+	@Benchmark
+	public void setWindowFocus(){
+		windows.setWindowFocus((flip = !flip) ? last : first);
+	}
+
+	@Benchmark
+	public int getWindowFocus(){
+		return windows.getWindowFocus();
+	}
+}
@@ -0,0 +1,125 @@
+package com.joc.jguii;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sets up the X environment used by the benchmarks.
+ * <p>
+ * The benchmarks expect <code>DISPLAY</code> to point at an Xvfb server,
+ * which is started by <code>run-benchmarks.sh</code>. This class starts
+ * the dummy X clients (<code>xdummy</code>) on that display and writes
+ * config files for {@link ConfigHandler} and {@link ApplicationHandler}.
+ * </p>
+ */
+final class XHarness {
+	/**
+	 * Prefix of the titles given to the dummy windows.
+	 */
+	static final String PREFIX = "jguii-dummy";
+	/**
+	 * Path to the xdummy binary, set by <code>run-benchmarks.sh</code>.
+	 */
+	private static final String XDUMMY = System.getProperty("jguii.xdummy", "bench/target/native/xdummy");
+
+	private XHarness(){
+	}
+
+	/**
+	 * Starts <code>count</code> dummy windows and waits until they are all listed in <code>_NET_CLIENT_LIST</code>.
+	 * @param count Number of windows to create, at most 1024.
+	 * @return The xdummy process, to be passed to {@link #stop(Process)}.
+	 * @throws IOException If xdummy could not be started or exited early.
+	 */
+	static Process startClients(int count) throws IOException{
+		requireDisplay();
+		Process proc = new ProcessBuilder(XDUMMY, String.valueOf(count), PREFIX)
+				.redirectError(ProcessBuilder.Redirect.INHERIT)
+				.start();
+		BufferedReader out = new BufferedReader(new InputStreamReader(proc.getInputStream()));
+		if(!"ready".equals(out.readLine())){
+			proc.destroy();
+			throw new IOException("xdummy exited before its windows were mapped");
+		}
+		return proc;
+	}
+
+	/**
+	 * Stops a process started by {@link #startClients(int)} and waits for it to exit.
+	 * @param proc The process to stop, may be null.
+	 */
+	static void stop(Process proc){
+		if(proc == null)
+			return;
+		proc.destroy();
+		try{
+			proc.waitFor(5, TimeUnit.SECONDS);
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Gets the title of the dummy window at index <code>i</code>.
+	 * @param i Index of the window.
+	 * @return The title xdummy gave the window.
+	 */
+	static String title(int i){
+		return String.format("%s-%04d", PREFIX, i);
+	}
+
+	/**
+	 * Writes a config file with the given applications, each with <code>points</code> points.
+	 * @param names Names of the applications.
+	 * @param points Number of points per application.
+	 * @return The config file, deleted when the JVM exits.
+	 * @throws IOException If the file could not be written.
+	 */
+	static File writeConfig(ArrayList<String> names, int points) throws IOException{
+		File config = File.createTempFile("jguii-bench", ".conf");
+		config.deleteOnExit();
+		try(BufferedWriter w = Files.newBufferedWriter(config.toPath())){
+			w.write("[applications]\n");
+			w.write("n=" + names.size() + "\n");
+			for(int i = 0; i < names.size(); i++){
+				w.write("\n[application" + i + "]\n");
+				w.write("name=\"" + names.get(i) + "\"\n");
+				w.write("points=" + points + "\n");
+				for(int j = 0; j < points; j++){
+					w.write("\"point" + j + "\"\n");
+					w.write("x=" + (10 + j % 600) + "\n");
+					w.write("y=" + (10 + j / 600) + "\n");
+				}
+			}
+		}
+		return config;
+	}
+
+	/**
+	 * Writes a config file with <code>apps</code> applications, each with <code>points</code> points.
+	 * @param apps Number of applications.
+	 * @param points Number of points per application.
+	 * @return The config file, deleted when the JVM exits.
+	 * @throws IOException If the file could not be written.
+	 */
+	static File writeConfig(int apps, int points) throws IOException{
+		ArrayList<String> names = new ArrayList<String>();
+		for(int i = 0; i < apps; i++)
+			names.add(title(i));
+		return writeConfig(names, points);
+	}
+
+	/**
+	 * Fails fast with a clear message when no X server is available.
+	 */
+	static void requireDisplay(){
+		if(System.getenv("DISPLAY") == null)
+			throw new IllegalStateException("DISPLAY is not set, run the benchmarks through bench/run-benchmarks.sh");
+	}
+}
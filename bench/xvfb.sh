@@ -0,0 +1,32 @@
+# Starts a private Xvfb display and exports DISPLAY, sourced by the run scripts.
+# The display is killed when the calling script exits.
+
+SCREEN=${XVFB_SCREEN:-1280x1024x24}
+
+if ! command -v Xvfb >/dev/null 2>&1; then
+	echo "Xvfb not found, install it (xvfb on Debian)" >&2
+	exit 1
+fi
+
+# find a free display number
+N=99
+while [ -e "/tmp/.X11-unix/X$N" ] || [ -e "/tmp/.X$N-lock" ]; do
+	N=$((N + 1))
+done
+
+Xvfb ":$N" -screen 0 "$SCREEN" -nolisten tcp >/dev/null 2>&1 &
+XVFB_PID=$!
+trap 'kill $XVFB_PID 2>/dev/null' EXIT INT TERM
+
+i=0
+while [ ! -e "/tmp/.X11-unix/X$N" ]; do
+	i=$((i + 1))
+	if [ $i -gt 100 ]; then
+		echo "Xvfb did not start on :$N" >&2
+		exit 1
+	fi
+	sleep 0.1
+done
+
+DISPLAY=":$N"
+export DISPLAY
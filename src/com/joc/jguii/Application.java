@@ -1,9 +1,20 @@
 package com.joc.jguii;
 
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.io.IOException;
 import java.util.ArrayList;
 
+import com.joc.jguii.backend.Backends;
+import com.joc.jguii.backend.WindowBackend;
+import com.joc.jguii.locate.PointLocator;
+import com.joc.jguii.metrics.FocusEvent;
+import com.joc.jguii.metrics.Metrics;
+import com.joc.jguii.metrics.Operation;
+import com.joc.jguii.metrics.WindowSearchEvent;
+import com.joc.jguii.recorder.FlightRecorder;
+import com.joc.jguii.recorder.RecordType;
+
 /**
  * Object for manipulating external applications.
  * <p>
@@ -13,6 +24,10 @@ import java.util.ArrayList;
  * </p>
  */
 public class Application {
+	/**
+	 * Finds image anchored points, shared so reference images are only loaded once. Matches are cached for each window.
+	 */
+	private static final PointLocator LOCATOR = new PointLocator();
 	/**
 	 * Window id for this Application.
 	 */
@@ -31,33 +46,18 @@ public class Application {
 	 */
 	private Process proc;
 	/**
-	 * Search for a window with <code>search</code> in its title.
-	 * <p>
-	 * Native method to return the window id of 
-	 * a window that has the <code>String search</code>
-	 * in its title.
-	 * </p>
-	 * @param search	The string to search for.
-	 * @return 			The id of the window or -1 if none is found.
+	 * Backend used to start, find and focus this Application's window.
 	 */
-	private native int windowSearch(String search);
-	
+	private WindowBackend windows;
 	/**
-	 * Sets the currently focused application to id.
-	 * <p>
-	 * Sets the currently focused application to 
-	 * the window that has id <code>id</code>.
-	 * </p>
-	 * @param id 	The id of the window to focus.
+	 * Index over the points, built on first use.
+	 * @see #getIndex()
 	 */
-	private native void setWindowFocus(int id);		//focuses and raises the specified window
-
-	/*
-	 * Load native libs
+	private volatile PointIndex index;
+	/**
+	 * Paces the input sent to this Application.
 	 */
-	static{
-		System.loadLibrary("xwindowtools");
-	}
+	private Pacer pacer;
 	
 	/**
 	 * Object for manipulating external applications.
@@ -72,22 +72,40 @@ public class Application {
 	 * @see   ApplicationHandler
 	 */
 	public Application(String name, ArrayList<NamedPoint>points){
+		this(name, points, Backends.getDefault().getWindowBackend());
+	}
+	/**
+	 * Object for manipulating external applications through the given backend.
+	 * <p>
+	 * Calls {@link #start()} and {@link #getInitId()}
+	 * </p>
+	 * @param name    The name of the bin that is executed and the string that is used to search for the window.
+	 * @param points  The list of points that can be clicked on.
+	 * @param windows The backend used to start, find and focus the window.
+	 * @see   Backends
+	 */
+	public Application(String name, ArrayList<NamedPoint>points, WindowBackend windows){
 		this.name = name;
 		this.points = points;
+		this.windows = windows;
 		start();
 		id = getInitId();
+		pacer = new Pacer(name, id, windows);
+		if(Pacer.ENABLED)
+			Metrics.register(name, pacer);
 	}
 	/**
 	 * Starts the Application.
 	 * <p>
-	 * Starts the Application by
-	 * executing the binary located at: "/usr/bin/" 
+	 * Starts the Application through the window backend, which for X11 
+	 * executes the binary located at: "/usr/bin/" 
 	 * with the name <code>name</code>.
 	 * </p>
+	 * @see WindowBackend#launch(String)
 	 */
 	private void start(){
 		try{
-			proc = Runtime.getRuntime().exec("/usr/bin/" + name);
+			proc = windows.launch(name);
 		}catch(IOException e){
 			e.printStackTrace();
 		}
@@ -102,14 +120,23 @@ public class Application {
 	 * </p>
 	 */
 	public void close(){
-		proc.destroy();
+		Metrics.unregister(name);
+		LOCATOR.clearCache(id);
+		if(proc != null)
+			proc.destroy();
 	}
 	
 	/**
 	 * Focuses and raises the application.
 	 */
 	public void focus(){
-		setWindowFocus(id);
+		FocusEvent event = new FocusEvent();
+		long start = Metrics.start();
+		event.begin();
+		FlightRecorder.record(RecordType.FOCUS, id, 0, 0);
+		windows.setWindowFocus(id);
+		event.commit(name, id);
+		Metrics.record(Operation.FOCUS, start);
 	}
 	/**
 	 * Retrieves the window id of this application just after it has been initially started.
@@ -120,12 +147,29 @@ public class Application {
 	 */
 	private int getInitId(){
 		int id = -1;
+		long start = Metrics.start();
 		try{
-			while((id = windowSearch(name)) == -1)
+			while((id = search(name)) == -1)
 				Thread.sleep(1000);
 		}catch(InterruptedException e){
 			e.printStackTrace();
 		}
+		Metrics.record(Operation.LAUNCH, start);
+		return id;
+	}
+	/**
+	 * Calls {@link WindowBackend#windowSearch(String)} and records its latency.
+	 * @param search	The string to search for.
+	 * @return 			The id of the window or -1 if none is found.
+	 * @see Metrics
+	 */
+	private int search(String search){
+		WindowSearchEvent event = new WindowSearchEvent();
+		long start = Metrics.start();
+		event.begin();
+		int id = windows.windowSearch(search);
+		event.commit(search, id);
+		Metrics.record(Operation.WINDOW_SEARCH, start);
 		return id;
 	}
 	/**
@@ -135,6 +179,20 @@ public class Application {
 	public int getId(){
 		return id;
 	}
+	/**
+	 * Gets the pacer of the input sent to this application.
+	 * @return The pacer, which holds the input rate chosen for this Application.
+	 */
+	public Pacer getPacer(){
+		return pacer;
+	}
+	/**
+	 * Gets the name of this application.
+	 * @return The name of the bin that is executed and searched for in window titles.
+	 */
+	public String getName(){
+		return name;
+	}
 	
 	/**
 	 * Gets the point at index <code>i</code>.
@@ -142,7 +200,7 @@ public class Application {
 	 * @return  The point at index <code>i</code>.
 	 */
 	public Point getPoint(int i){
-		return points.get(i);
+		return resolve(points.get(i));
 	}
 	/**
 	 * Gets the point with name <code>name</code>.
@@ -152,9 +210,59 @@ public class Application {
 	public Point getPoint(String name){
 		for(int i = 0; i < points.size(); i++){
 			if(name.equals(points.get(i).getName())){
-				return points.get(i);
+				return resolve(points.get(i));
 			}
 		}
 		return null;
 	}
+	/**
+	 * Finds where a point currently is on screen.
+	 * @param point The point from the config file.
+	 * @return The point itself if it is absolute, otherwise its offset added to where its image was found 
+	 * or null if the image is not in the window.
+	 * @see PointLocator
+	 */
+	private NamedPoint resolve(NamedPoint point){
+		if(point.getImage() == null)
+			return point;
+		Point origin = LOCATOR.locate(point.getImage(), windows, id);
+		if(origin == null)
+			return null;
+		NamedPoint p = new NamedPoint(origin.x + point.x, origin.y + point.y, point.getName(), point.getImage());
+		if(point.getBox() != null){
+			Rectangle box = new Rectangle(point.getBox());
+			box.translate(origin.x, origin.y);
+			p.setBox(box);
+		}
+		return p;
+	}
+	/**
+	 * Gets an index over this Application's points, for finding the point at a screen position.
+	 * <p>
+	 * Built on first use. Points anchored to an image are placed where the image was 
+	 * found at that time and left out if it was not found; call {@link #rebuildIndex()} 
+	 * after the window has moved or changed.
+	 * </p>
+	 * @return The index.
+	 */
+	public PointIndex getIndex(){
+		PointIndex i = index;
+		if(i == null)
+			i = rebuildIndex();
+		return i;
+	}
+	/**
+	 * Rebuilds the index returned by {@link #getIndex()}.
+	 * @return The new index.
+	 */
+	public PointIndex rebuildIndex(){
+		ArrayList<NamedPoint> resolved = new ArrayList<NamedPoint>(points.size());
+		for(NamedPoint p : points){
+			NamedPoint r = resolve(p);
+			if(r != null)
+				resolved.add(r);
+		}
+		index = new PointIndex(resolved);
+		return index;
+	}
 }
\ No newline at end of file
@@ -10,6 +10,16 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 
+import com.joc.jguii.backend.BackendProvider;
+import com.joc.jguii.backend.Backends;
+import com.joc.jguii.backend.InputBackend;
+import com.joc.jguii.backend.WindowBackend;
+import com.joc.jguii.metrics.Metrics;
+import com.joc.jguii.metrics.OpenEvent;
+import com.joc.jguii.metrics.Operation;
+import com.joc.jguii.recorder.FlightRecorder;
+import com.joc.jguii.recorder.RecordType;
+
 /**
  * Object for interacting with {@link Application}s.
  */
@@ -40,29 +50,14 @@ public class ApplicationHandler{
 	private int currApp;		//index of currently focused app in appsList[]
 	
 	/**
-	 * Searches for a window with <code>search</code> in its title.
-	 * <p>
-	 * Native method to return the window id of 
-	 * a window that has the <code>String search</code>
-	 * in its title.
-	 * </p>
-	 * @param search	The string to search for.
-	 * @return 			The id of the window or -1 if none is found.
+	 * Backend used to find and focus windows.
 	 */
-	private native int windowSearch(String search);
-	
+	private WindowBackend windows;
 	/**
-	 * Gets the id of the currently focused application.
-	 * @return The window id of the currently focused application.
+	 * Backend used to generate input and record clicks.
 	 */
-	private native int getWindowFocus();			//returns id of currently focused window
+	private InputBackend input;
 	
-	/*
-	 * Load libs
-	 */
-	static{
-		System.loadLibrary("xwindowtools");
-	}
 	/**
 	 * Object for interacting with Applications.
 	 * <p>
@@ -74,6 +69,22 @@ public class ApplicationHandler{
 	 * @see   Application
 	 */
 	public ApplicationHandler(String config){
+		this(config, Backends.getDefault());
+	}
+	/**
+	 * Object for interacting with Applications through the given backends.
+	 * <p>
+	 * Used for opening and controlling all Applications specified
+	 * in config file, for example on a {@link com.joc.jguii.backend.SimulatedDesktop}.
+	 * </p>
+	 * @param config  Path to config file.
+	 * @param backend Provider of the window and input backends.
+	 * @see	  ConfigHandler
+	 * @see   Backends
+	 */
+	public ApplicationHandler(String config, BackendProvider backend){
+		windows = backend.getWindowBackend();
+		FlightRecorder.watch(windows);
 		osName = System.getProperty("os.name");
 		this.config = config;
 		try {
@@ -85,7 +96,8 @@ public class ApplicationHandler{
 		initAppsList();
 		
 		try {
-			ih = new InteractionHandler();
+			input = backend.getInputBackend();
+			ih = new InteractionHandler(input);
 		} catch (AWTException e) {
 			e.printStackTrace();
 		}
@@ -102,10 +114,17 @@ public class ApplicationHandler{
 	 * @see #open(String name)
 	 */
 	public void open(int index){
+		OpenEvent event = new OpenEvent();
+		long start = Metrics.start();
+		event.begin();
 		if(!isOpen(index))
-			appsList[index] = new Application(reader.getApplicationName(index), reader.getPoints(index));
+			appsList[index] = new Application(reader.getApplicationName(index), reader.getPoints(index), windows);
+		FlightRecorder.record(RecordType.OPEN, appsList[index].getId(), index, 0);
 		appsList[index].focus();
 		currApp = index;
+		ih.setTarget(appsList[index]);
+		event.commit(appsList[index].getName(), appsList[index].getId());
+		Metrics.record(Operation.OPEN, start);
 		return;
 	}
 	/**
@@ -130,6 +149,7 @@ public class ApplicationHandler{
 	public void focus(int index){
 		appsList[index].focus();
 		currApp = index;
+		ih.setTarget(appsList[index]);
 		return;
 	}
 	/**
@@ -175,6 +195,7 @@ public class ApplicationHandler{
 		appsList[index].close();
 		appsList[index] = null;
 		currApp = getCurrentApp(false);
+		ih.setTarget(currApp == -1 ? null : appsList[currApp]);
 		return;
 	}
 	/**
@@ -204,7 +225,7 @@ public class ApplicationHandler{
 	 * @see InteractionHandler#typeInArea(java.awt.Point, String, boolean)
 	 */
 	public void typeInBoxI(int pointIndex, String t, boolean ret){
-		ih.typeInArea(appsList[getCurrentApp(true)].getPoint(pointIndex), t, ret);
+		ih.typeInArea(currentApp().getPoint(pointIndex), t, ret);
 		return;
 	}
 	/**
@@ -216,7 +237,7 @@ public class ApplicationHandler{
 	 * @see InteractionHandler#typeInArea(java.awt.Point, String, boolean)
 	 */
 	public void typeInBox(String pointName, String t, boolean ret){
-		ih.typeInArea(appsList[getCurrentApp(true)].getPoint(pointName), t, ret);
+		ih.typeInArea(currentApp().getPoint(pointName), t, ret);
 		return;
 	}
 	/**
@@ -226,7 +247,7 @@ public class ApplicationHandler{
 	 * @see InteractionHandler#leftClick(java.awt.Point)
 	 */
 	public void leftClickI(int pointIndex){
-		ih.leftClick(appsList[getCurrentApp(true)].getPoint(pointIndex));
+		ih.leftClick(currentApp().getPoint(pointIndex));
 		return;
 	}
 	/**
@@ -236,7 +257,7 @@ public class ApplicationHandler{
 	 * @see InteractionHandler#leftClick(java.awt.Point)
 	 */
 	public void leftClick(String pointName){
-		ih.leftClick(appsList[getCurrentApp(true)].getPoint(pointName));
+		ih.leftClick(currentApp().getPoint(pointName));
 		return;
 	}
 	/**
@@ -246,7 +267,7 @@ public class ApplicationHandler{
 	 * @see InteractionHandler#rightClick(java.awt.Point)
 	 */
 	public void rightClickI(int pointIndex){
-		ih.rightClick(appsList[getCurrentApp(true)].getPoint(pointIndex));
+		ih.rightClick(currentApp().getPoint(pointIndex));
 		return;
 	}
 	/**
@@ -256,7 +277,7 @@ public class ApplicationHandler{
 	 * @see InteractionHandler#rightClick(java.awt.Point)
 	 */
 	public void rightClick(String pointName){
-		ih.rightClick(appsList[getCurrentApp(true)].getPoint(pointName));
+		ih.rightClick(currentApp().getPoint(pointName));
 		return;
 	}
 	/**
@@ -266,7 +287,7 @@ public class ApplicationHandler{
 	 * @see InteractionHandler#mouseWheelClick(java.awt.Point)
 	 */
 	public void mouseWheelClickI(int pointIndex){
-		ih.mouseWheelClick(appsList[getCurrentApp(true)].getPoint(pointIndex));
+		ih.mouseWheelClick(currentApp().getPoint(pointIndex));
 		return;
 	}
 	/**
@@ -276,7 +297,7 @@ public class ApplicationHandler{
 	 * @see InteractionHandler#mouseWheelClick(java.awt.Point)
 	 */
 	public void mouseWheelClick(String pointName){
-		ih.mouseWheelClick(appsList[getCurrentApp(true)].getPoint(pointName));
+		ih.mouseWheelClick(currentApp().getPoint(pointName));
 		return;
 	}
 	/**
@@ -334,7 +355,9 @@ public class ApplicationHandler{
 	 * @see ApplicationHandler#currApp
 	 */
 	private int getCurrentApp(boolean check){
-		int currID = getWindowFocus();
+		long start = Metrics.start();
+		int currID = windows.getWindowFocus();
+		Metrics.record(Operation.GET_WINDOW_FOCUS, start);
 		
 		if(check && currID != currApp)
 			focus(currApp);
@@ -346,6 +369,40 @@ public class ApplicationHandler{
 		}
 		return -1;
 	}
+	/**
+	 * Gets the focused Application, refocusing the last one opened or focused if focus has moved away.
+	 * @return The focused Application.
+	 * @throws IllegalStateException If no Application is open, or the focused window is not one.
+	 */
+	private Application currentApp(){
+		if(currApp < 0 || appsList[currApp] == null)
+			throw new IllegalStateException("no Application is open");
+		int i = getCurrentApp(true);
+		if(i == -1)
+			throw new IllegalStateException("the focused window is not an open Application");
+		return appsList[i];
+	}
+	/**
+	 * Gets the Applications, null for those that are not open.
+	 * @return {@link #appsList} itself, indexed like the config file.
+	 */
+	Application[] getApplications(){
+		return appsList;
+	}
+	/**
+	 * Gets the backend used to find and focus windows.
+	 * @return The window backend.
+	 */
+	WindowBackend getWindows(){
+		return windows;
+	}
+	/**
+	 * Gets the backend used to generate input.
+	 * @return The input backend, or null if it could not be created.
+	 */
+	InputBackend getInput(){
+		return input;
+	}
 	/**
 	 * Initialises all objects in {@link #appsList} to <code>null</code>.
 	 */
@@ -0,0 +1,268 @@
+package com.joc.jguii;
+
+import java.awt.Rectangle;
+import java.awt.event.InputEvent;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.concurrent.Flow;
+
+import com.joc.jguii.backend.ClickListener;
+import com.joc.jguii.backend.ClickRecording;
+import com.joc.jguii.backend.WindowEvent;
+
+/**
+ * Records clicks as a script of named points.
+ * <p>
+ * Every click is mapped to an open {@link Application}: the focused one if its
+ * window contains the click, otherwise the first open Application whose window
+ * does, since the press is seen before a click-to-focus window manager moves
+ * the focus. The click is then looked up in the Application's {@link PointIndex},
+ * first by box and then by the nearest point within <code>maxDistance</code>.
+ * Each matched click is written as one line, as soon as it is seen:
+ * </p>
+ * <pre>
+ * open "gedit"
+ * leftClick "save"
+ * rightClick "text"
+ * mouseWheelClick "text"
+ * </pre>
+ * <p>
+ * <code>open</code> is written whenever the clicks move to another Application.
+ * Clicks that cannot be matched are written as comments starting with <code>#</code>.
+ * Scripts are played back with {@link #play(ApplicationHandler, BufferedReader)}.
+ * </p>
+ */
+public class ClickRecorder implements ClickListener, AutoCloseable {
+	/**
+	 * Default largest distance, in pixels, from a click to the point it is recorded as.
+	 */
+	public static final double DEFAULT_MAX_DISTANCE = 24;
+
+	private final ApplicationHandler handler;
+	private final Writer out;
+	private final double maxDistance;
+	private ClickRecording recording;
+	private Flow.Subscription subscription;
+	/**
+	 * Window id of the active window, kept up to date from window events when the backend publishes them.
+	 */
+	private volatile int activeWindow = -1;
+	/**
+	 * Application the last recorded click went to.
+	 */
+	private Application last;
+	private long clicks, unmatched;
+
+	/**
+	 * @param handler The handler whose open Applications clicks are mapped to.
+	 * @param out Where the script is written, flushed after every line.
+	 */
+	public ClickRecorder(ApplicationHandler handler, Writer out){
+		this(handler, out, DEFAULT_MAX_DISTANCE);
+	}
+
+	/**
+	 * @param handler The handler whose open Applications clicks are mapped to.
+	 * @param out Where the script is written, flushed after every line.
+	 * @param maxDistance Largest distance, in pixels, from a click outside any box to the nearest point.
+	 */
+	public ClickRecorder(ApplicationHandler handler, Writer out, double maxDistance){
+		this.handler = handler;
+		this.out = out;
+		this.maxDistance = maxDistance;
+	}
+
+	/**
+	 * Starts recording clicks from the handler's input backend.
+	 * @throws UnsupportedOperationException If the input backend cannot record clicks.
+	 * @see com.joc.jguii.backend.InputBackend#recordClicks(ClickListener)
+	 */
+	public synchronized void start(){
+		if(recording != null)
+			return;
+		try{
+			handler.getWindows().getWindowEvents().subscribe(new Flow.Subscriber<WindowEvent>(){
+				@Override
+				public void onSubscribe(Flow.Subscription s){
+					subscription = s;
+					s.request(Long.MAX_VALUE);
+				}
+
+				@Override
+				public void onNext(WindowEvent e){
+					if(e.getType() == WindowEvent.Type.ACTIVE_CHANGED)
+						activeWindow = e.getWindow();
+				}
+
+				@Override
+				public void onError(Throwable t){
+					subscription = null;
+				}
+
+				@Override
+				public void onComplete(){
+					subscription = null;
+				}
+			});
+		}catch(UnsupportedOperationException e){
+			subscription = null;
+		}
+		activeWindow = handler.getWindows().getWindowFocus();
+		recording = handler.getInput().recordClicks(this);
+	}
+
+	/**
+	 * Records a click, called by the input backend.
+	 * @throws UncheckedIOException If the script could not be written.
+	 */
+	@Override
+	public synchronized void click(long time, int x, int y, int buttons){
+		String command = command(buttons);
+		clicks++;
+		Application app = applicationAt(x, y);
+		try{
+			if(app == null){
+				unmatched++;
+				out.write("# " + command + " at " + x + "," + y + " outside any open application\n");
+			}else{
+				if(app != last){
+					out.write("open \"" + app.getName() + "\"\n");
+					last = app;
+				}
+				PointIndex index = app.getIndex();
+				NamedPoint p = index.pointAt(x, y);
+				if(p == null)
+					p = index.nearest(x, y, maxDistance);
+				if(p == null){
+					unmatched++;
+					out.write("# " + command + " at " + x + "," + y + " is not near any point\n");
+				}else{
+					out.write(command + " \"" + p.getName() + "\"\n");
+				}
+			}
+			out.flush();
+		}catch(IOException e){
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Finds the open Application a click at <code>(x, y)</code> went to.
+	 */
+	private Application applicationAt(int x, int y){
+		int active = subscription != null ? activeWindow : handler.getWindows().getWindowFocus();
+		Application apps[] = handler.getApplications();
+		Application focused = null;
+		for(Application a : apps)
+			if(a != null && a.getId() == active)
+				focused = a;
+		if(focused != null && contains(focused, x, y, true))
+			return focused;
+		for(Application a : apps)
+			if(a != null && a != focused && contains(a, x, y, false))
+				return a;
+		return null;
+	}
+
+	/**
+	 * Checks if an Application's window contains <code>(x, y)</code>.
+	 * @param otherwise Returned if the backend cannot get window bounds.
+	 */
+	private boolean contains(Application app, int x, int y, boolean otherwise){
+		try{
+			Rectangle bounds = handler.getWindows().getWindowBounds(app.getId());
+			return bounds != null && bounds.contains(x, y);
+		}catch(UnsupportedOperationException e){
+			return otherwise;
+		}
+	}
+
+	/**
+	 * Gets the script command for a button.
+	 */
+	private static String command(int buttons){
+		if((buttons & InputEvent.BUTTON3_DOWN_MASK) != 0)
+			return "rightClick";
+		if((buttons & InputEvent.BUTTON2_DOWN_MASK) != 0)
+			return "mouseWheelClick";
+		return "leftClick";
+	}
+
+	/**
+	 * Gets the number of clicks seen.
+	 * @return The number of clicks, matched or not.
+	 */
+	public synchronized long getClicks(){
+		return clicks;
+	}
+
+	/**
+	 * Gets the number of clicks that could not be matched to a point.
+	 * @return The number of clicks written as comments.
+	 */
+	public synchronized long getUnmatched(){
+		return unmatched;
+	}
+
+	/**
+	 * Stops recording.
+	 */
+	@Override
+	public void close(){
+		ClickRecording r;
+		Flow.Subscription s;
+		synchronized(this){
+			r = recording;
+			s = subscription;
+			recording = null;
+			subscription = null;
+		}
+		//closing waits for the recording thread, which may be waiting for this lock in click()
+		if(r != null)
+			r.close();
+		if(s != null)
+			s.cancel();
+	}
+
+	/**
+	 * Plays a recorded script.
+	 * @param handler The handler to run the script with.
+	 * @param script The script, read to the end.
+	 * @throws IOException If the script could not be read.
+	 * @throws IllegalArgumentException If a line is not a command.
+	 */
+	public static void play(ApplicationHandler handler, BufferedReader script) throws IOException{
+		String line;
+		int n = 0;
+		while((line = script.readLine()) != null){
+			n++;
+			line = line.trim();
+			if(line.isEmpty() || line.startsWith("#"))
+				continue;
+			int a = line.indexOf('"'), b = line.lastIndexOf('"');
+			if(a == -1 || b <= a)
+				throw new IllegalArgumentException("line " + n + ": expected a command and a quoted name");
+			String command = line.substring(0, a).trim();
+			String name = line.substring(a + 1, b);
+			switch(command){
+			case "open":
+				handler.open(name);
+				break;
+			case "leftClick":
+				handler.leftClick(name);
+				break;
+			case "rightClick":
+				handler.rightClick(name);
+				break;
+			case "mouseWheelClick":
+				handler.mouseWheelClick(name);
+				break;
+			default:
+				throw new IllegalArgumentException("line " + n + ": unknown command " + command);
+			}
+		}
+		return;
+	}
+}
@@ -1,7 +1,9 @@
 package com.joc.jguii;
 
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
@@ -95,6 +97,7 @@ public class ConfigHandler extends BufferedReader{
 		String pointName;	//Buffer for holding name of most recent point
 		int n, np;			//Numbers of arguments read from config file, no. of applications and points respectively
 		int x, y;			//Buffers for holding x and y co-ords of most recent point
+		NamedPoint point;
 		ArrayList<NamedPoint> currentPointsList = null;
 		
 		//skip whitespace and comments to beginning of next section
@@ -116,13 +119,69 @@ public class ConfigHandler extends BufferedReader{
 				pointName = getBetween(readLine(), '"', '"');
 				x = Integer.parseInt(String.valueOf(nextAppropriate(readLine(), '=')));
 				y = Integer.parseInt(String.valueOf(nextAppropriate(readLine(), '=')));
-				currentPointsList.add(new NamedPoint(x, y, pointName));
+				point = new NamedPoint(x, y, pointName);
+				readOptional(point);
+				currentPointsList.add(point);
 			}
 			pointsList.add(currentPointsList);
 			currentPointsList = null;
 		}
 	}
 	
+	/**
+	 * Reads the optional lines after a point, in any order.
+	 * <p>
+	 * <code>image="..."</code> anchors the point to a reference image, relative paths
+	 * are resolved against the directory of the config file. <code>box=x,y,w,h</code>
+	 * sets the area that counts as the point, <code>w</code> and <code>h</code> must be
+	 * positive. The first line that is neither is left to be read again.
+	 * </p>
+	 * @param point The point just read
+	 * @throws IOException If a box is malformed.
+	 * @see NamedPoint#getImage()
+	 * @see NamedPoint#getBox()
+	 */
+	private void readOptional(NamedPoint point) throws IOException{
+		String line, image;
+		for(;;){
+			mark(8192);
+			line = readLine();
+			if(line == null){
+				reset();
+				return;
+			}
+			line = line.trim();
+			if(line.startsWith("image")){
+				image = getBetween(line, '"', '"');
+				if(image == null)
+					continue;
+				File file = new File(image);
+				if(!file.isAbsolute() && new File(config).getParentFile() != null)
+					file = new File(new File(config).getParentFile(), image);
+				point.setImage(file.getPath());
+			}else if(line.startsWith("box")){
+				String value = nextAppropriate(line, '=');
+				String v[] = value == null ? new String[0] : value.split(",");
+				Rectangle box = null;
+				try{
+					if(v.length == 4)
+						box = new Rectangle(Integer.parseInt(v[0].trim()), Integer.parseInt(v[1].trim()),
+								Integer.parseInt(v[2].trim()), Integer.parseInt(v[3].trim()));
+				}catch(NumberFormatException e){
+					throw new IOException("box for point " + point.getName() + " must be x,y,w,h", e);
+				}
+				if(box == null)
+					throw new IOException("box for point " + point.getName() + " must be x,y,w,h");
+				if(box.width <= 0 || box.height <= 0)
+					throw new IOException("box for point " + point.getName() + " must have a positive width and height");
+				point.setBox(box);
+			}else{
+				reset();
+				return;
+			}
+		}
+	}
+	
 	// Setting config is pointless. A new Reader is required so close this from ApplicationHandler and call a new one
 	
 	/**
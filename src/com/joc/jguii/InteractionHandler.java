@@ -1,19 +1,173 @@
 package com.joc.jguii;
 
 import java.awt.AWTException;
-import java.awt.MouseInfo;
 import java.awt.Point;
 import java.awt.Robot;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 
+import com.joc.jguii.backend.Backends;
+import com.joc.jguii.backend.InputBackend;
+import com.joc.jguii.backend.RobotInputBackend;
+import com.joc.jguii.metrics.ClickEvent;
+import com.joc.jguii.metrics.Metrics;
+import com.joc.jguii.metrics.Operation;
+import com.joc.jguii.metrics.TypeEvent;
+import com.joc.jguii.recorder.FlightRecorder;
+import com.joc.jguii.recorder.RecordType;
+
 /**
  * Used for generating dummy input.
+ * <p>
+ * Input is generated by an {@link InputBackend}, a {@link java.awt.Robot} for X11.
+ * Every key and mouse event is written to the {@link FlightRecorder} before it is sent.
+ * With <code>-Djguii.pacing=true</code>, events sent to a known Application are paced 
+ * by its {@link Pacer}, so input never arrives faster than the Application can handle it.
+ * </p>
  */
-public class InteractionHandler extends Robot{
+public class InteractionHandler{
+	/**
+	 * Backend that generates all input.
+	 */
+	private InputBackend input;
+	/**
+	 * Name of the Application input is currently sent to, used when recording metrics.
+	 */
+	private volatile String targetName;
+	/**
+	 * Window id of the Application input is currently sent to, or -1 if not known.
+	 */
+	private volatile int targetId = -1;
+	/**
+	 * Paces input to the Application input is currently sent to, or null if input is not paced.
+	 */
+	private volatile Pacer pacer;
 
+	/**
+	 * Generates input with the default backend.
+	 * @throws AWTException If the backend could not be created.
+	 * @see Backends
+	 */
 	public InteractionHandler() throws AWTException{
-		super();
+		this(Backends.getDefault().getInputBackend());
+	}
+	
+	/**
+	 * Generates input with the given backend.
+	 * @param input Backend to generate input with.
+	 */
+	public InteractionHandler(InputBackend input){
+		this.input = input;
+	}
+	
+	/**
+	 * Gets the Robot that generates input.
+	 * <p>
+	 * InteractionHandler used to extend Robot. This is for code that still needs Robot 
+	 * methods InteractionHandler does not have, input sent through the Robot is not 
+	 * paced, recorded or measured.
+	 * </p>
+	 * @return The Robot used by the backend.
+	 * @throws UnsupportedOperationException If the backend does not generate input with a Robot.
+	 * @deprecated Use the methods of InteractionHandler, or an {@link InputBackend}.
+	 */
+	@Deprecated
+	public Robot getRobot(){
+		if(!(input instanceof RobotInputBackend))
+			throw new UnsupportedOperationException("the input backend does not use a Robot");
+		return ((RobotInputBackend)input).getRobot();
+	}
+	
+	/**
+	 * Presses a key.
+	 * @param keycode Key to press, for example KeyEvent.VK_A
+	 * @see KeyEvent
+	 */
+	public void keyPress(int keycode){
+		Pacer p = pacer;
+		if(p != null)
+			p.pace();
+		FlightRecorder.record(RecordType.KEY_PRESS, targetId, keycode, 0);
+		input.keyPress(keycode);
+		if(p != null)
+			p.sent();
+	}
+	/**
+	 * Releases a key.
+	 * @param keycode Key to release, for example KeyEvent.VK_A
+	 * @see KeyEvent
+	 */
+	public void keyRelease(int keycode){
+		Pacer p = pacer;
+		if(p != null)
+			p.pace();
+		FlightRecorder.record(RecordType.KEY_RELEASE, targetId, keycode, 0);
+		input.keyRelease(keycode);
+		if(p != null)
+			p.sent();
+	}
+	/**
+	 * Presses one or more mouse buttons.
+	 * @param buttons Button mask, for example InputEvent.BUTTON1_DOWN_MASK
+	 * @see InputEvent
+	 */
+	public void mousePress(int buttons){
+		Pacer p = pacer;
+		if(p != null)
+			p.pace();
+		FlightRecorder.record(RecordType.MOUSE_PRESS, targetId, buttons, 0);
+		input.mousePress(buttons);
+		if(p != null)
+			p.sent();
+	}
+	/**
+	 * Releases one or more mouse buttons.
+	 * @param buttons Button mask, for example InputEvent.BUTTON1_DOWN_MASK
+	 * @see InputEvent
+	 */
+	public void mouseRelease(int buttons){
+		Pacer p = pacer;
+		if(p != null)
+			p.pace();
+		FlightRecorder.record(RecordType.MOUSE_RELEASE, targetId, buttons, 0);
+		input.mouseRelease(buttons);
+		if(p != null)
+			p.sent();
+	}
+	/**
+	 * Moves the mouse to the absolute coordinates <code>(x, y)</code>.
+	 * @param x X coordinate
+	 * @param y Y coordinate
+	 */
+	public void mouseMove(int x, int y){
+		Pacer p = pacer;
+		if(p != null)
+			p.pace();
+		FlightRecorder.record(RecordType.MOUSE_MOVE, targetId, x, y);
+		input.mouseMove(x, y);
+		if(p != null)
+			p.sent();
+	}
+	
+	/**
+	 * Sets the Application that input is being sent to.
+	 * <p>
+	 * Used to label recorded metrics and events and to pick the {@link Pacer}, 
+	 * input always goes to whichever window has focus.
+	 * </p>
+	 * @param app The focused Application or null if not known.
+	 * @see Metrics
+	 */
+	void setTarget(Application app){
+		if(app == null){
+			targetName = null;
+			targetId = -1;
+			pacer = null;
+		}else{
+			targetName = app.getName();
+			targetId = app.getId();
+			pacer = Pacer.ENABLED ? app.getPacer() : null;
+		}
 	}
 	
 	/**
@@ -26,6 +180,9 @@ public class InteractionHandler extends Robot{
 	 * @param ret If true enter/return will be pressed
 	 */
 	public void type(String t, boolean ret){
+		TypeEvent event = new TypeEvent();
+		long start = Metrics.start();
+		event.begin();
 		for(int i = 0; i < t.length(); i++){
 			keyPress(KeyEvent.getExtendedKeyCodeForChar((int)t.charAt(i)));
 			keyRelease(KeyEvent.getExtendedKeyCodeForChar((int)t.charAt(i)));
@@ -34,6 +191,9 @@ public class InteractionHandler extends Robot{
 			keyPress(KeyEvent.VK_ENTER);
 			keyRelease(KeyEvent.VK_ENTER);
 		}
+		event.length = t.length();
+		event.commit(targetName, targetId);
+		Metrics.record(Operation.TYPE, start);
 		return;
 	}
 	/**
@@ -50,36 +210,44 @@ public class InteractionHandler extends Robot{
 		return;
 	}
 	
+	/**
+	 * Presses and releases a single key.
+	 * @param keycode Key to press, for example KeyEvent.VK_UP
+	 * @see KeyEvent
+	 */
+	private void pressKey(int keycode){
+		long start = Metrics.start();
+		keyPress(keycode);
+		keyRelease(keycode);
+		Metrics.record(Operation.KEY, start);
+	}
+	
 	/**
 	 * Presses and releases the up key.
 	 */
 	public void pressUp(){
-		keyPress(KeyEvent.VK_UP);
-		keyRelease(KeyEvent.VK_UP);
+		pressKey(KeyEvent.VK_UP);
 		return;
 	}
 	/**
 	 * Presses and releases the down key.
 	 */
 	public void pressDown(){
-		keyPress(KeyEvent.VK_DOWN);
-		keyRelease(KeyEvent.VK_DOWN);
+		pressKey(KeyEvent.VK_DOWN);
 		return;
 	}
 	/**
 	 * Presses and releases the left key.
 	 */
 	public void pressLeft(){
-		keyPress(KeyEvent.VK_LEFT);
-		keyRelease(KeyEvent.VK_LEFT);
+		pressKey(KeyEvent.VK_LEFT);
 		return;
 	}
 	/**
 	 * Presses and releases the right key.
 	 */
 	public void pressRight(){
-		keyPress(KeyEvent.VK_RIGHT);
-		keyPress(KeyEvent.VK_RIGHT);
+		pressKey(KeyEvent.VK_RIGHT);
 		return;
 	}
 	/**
@@ -108,21 +276,33 @@ public class InteractionHandler extends Robot{
 	 * @return The absolute position of the mouse
 	 */
 	public Point getMousePos(){
-		return MouseInfo.getPointerInfo().getLocation();
+		return input.getMousePosition();
 	}
 	
 	/**
-	 * Presses and releases the specified mouse button
+	 * Clicks the specified mouse button at the point p
 	 * <p>
-	 * Presses and releases the specified mouse button. Requires that button masks be used.
-	 * For example, InputEvent.BUTTON1_DOWN_MASK
+	 * Moves the mouse to p then presses and releases the specified mouse button. 
+	 * Requires that button masks be used. For example, InputEvent.BUTTON1_DOWN_MASK
 	 * </p>
+	 * @param p Point to click
 	 * @param button The button to be clicked
 	 * @see InputEvent
 	 */
-	private void click(int button){
+	private void click(Point p, int button){
+		if(p == null)
+			throw new IllegalArgumentException("point is not on screen");
+		ClickEvent event = new ClickEvent();
+		long start = Metrics.start();
+		event.begin();
+		moveMouseTo(p);
 		mousePress(button);
 		mouseRelease(button);
+		event.x = p.x;
+		event.y = p.y;
+		event.button = button;
+		event.commit(targetName, targetId);
+		Metrics.record(Operation.CLICK, start);
 		return;
 	}
 	
@@ -134,30 +314,27 @@ public class InteractionHandler extends Robot{
 	 * @param p Point to click
 	 */
 	public void leftClick(Point p){
-		moveMouseTo(p);
-		click(InputEvent.BUTTON1_DOWN_MASK);
+		click(p, InputEvent.BUTTON1_DOWN_MASK);
 	}
 	/**
 	 * Clicks the right mouse button at the point p
 	 * <p>
-	 * Moves the mouse to p and clicks the right mouse button (InputEvent.BUTTON2_DONW_MASK)
+	 * Moves the mouse to p and clicks the right mouse button (InputEvent.BUTTON3_DOWN_MASK)
 	 * </p>
 	 * @param p Point to click
 	 */
 	public void rightClick(Point p){
-		moveMouseTo(p);
-		click(InputEvent.BUTTON2_DOWN_MASK);
+		click(p, InputEvent.BUTTON3_DOWN_MASK);
 	}
 	
 	/**
 	 * Clicks the mouse wheel at the point p
 	 * <p>
-	 * Moves the mouse to p and clicks the mouse wheel (InputEvent.BUTTON3_DOWN_MASK)
+	 * Moves the mouse to p and clicks the mouse wheel (InputEvent.BUTTON2_DOWN_MASK)
 	 * </p>
 	 * @param p Point to click
 	 */
 	public void mouseWheelClick(Point p){
-		moveMouseTo(p);
-		click(InputEvent.BUTTON3_DOWN_MASK);
+		click(p, InputEvent.BUTTON2_DOWN_MASK);
 	}
 }
@@ -1,18 +1,43 @@
 package com.joc.jguii;
 
 import java.awt.Point;
+import java.awt.Rectangle;
 
 /**
  * Stores a {@link Point} and a {@link String}.
+ * <p>
+ * A point can be anchored to a reference image, in which case x and y are
+ * an offset from the top left corner of where the image is found in the window.
+ * A point can also have a box, the area that counts as clicking on it, used
+ * by {@link PointIndex}.
+ * </p>
  */
 public class NamedPoint extends Point{
 	/**
 	 * Name of this point.
 	 */
 	private String name;
+	/**
+	 * Path to the reference image this point is anchored to, or null.
+	 */
+	private String image;
+	/**
+	 * Area that counts as this point, or null.
+	 */
+	private Rectangle box;
 	public NamedPoint(int x, int y, String name){
+		this(x, y, name, null);
+	}
+	/**
+	 * @param x Offset from the left of the image.
+	 * @param y Offset from the top of the image.
+	 * @param name Name of the point.
+	 * @param image Path to the reference image, or null for an absolute point.
+	 */
+	public NamedPoint(int x, int y, String name, String image){
 		super(x, y);
 		this.name = name;
+		this.image = image;
 	}
 	
 	/**
@@ -29,4 +54,35 @@ public class NamedPoint extends Point{
 	public void setName(String name){
 		this.name = name;
 	}
+	/**
+	 * Gets the reference image this point is anchored to.
+	 * @return Path to the image or null if this point is absolute.
+	 */
+	public String getImage(){
+		return image;
+	}
+	/**
+	 * Sets the reference image this point is anchored to.
+	 * @param image Path to the image or null to make this point absolute.
+	 */
+	public void setImage(String image){
+		this.image = image;
+	}
+	/**
+	 * Gets the area that counts as this point, in the same coordinates as the point.
+	 * @return The box or null if this point has none.
+	 */
+	public Rectangle getBox(){
+		return box;
+	}
+	/**
+	 * Sets the area that counts as this point.
+	 * @param box The box or null to remove it.
+	 * @throws IllegalArgumentException If the box has no area.
+	 */
+	public void setBox(Rectangle box){
+		if(box != null && (box.width <= 0 || box.height <= 0))
+			throw new IllegalArgumentException("box must have a positive width and height");
+		this.box = box;
+	}
 }
@@ -0,0 +1,253 @@
+package com.joc.jguii;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.joc.jguii.backend.WindowBackend;
+import com.joc.jguii.metrics.Metrics;
+import com.joc.jguii.metrics.Operation;
+import com.joc.jguii.metrics.PacingStatsMXBean;
+import com.joc.jguii.metrics.PingEvent;
+
+/**
+ * Paces the input sent to one {@link Application} at the fastest rate it keeps up with.
+ * <p>
+ * After every {@link #PROBE_EVENTS} input events the Application is pinged through
+ * {@link WindowBackend#ping(int, long)}. The ping waits behind the input already sent,
+ * so its latency is how long the Application takes to work through that input. The
+ * lowest latency seen recently is taken as the latency of an Application that is keeping
+ * up. A ping more than {@link #TARGET} slower than that, or one that is not replied to
+ * at all, means input is queueing up and the rate is halved, otherwise the rate is raised
+ * by {@link #INCREASE} events per second. This additive increase, multiplicative decrease
+ * (AIMD) is the same control TCP uses, and keeps the rate just under the point where the
+ * Application starts to fall behind.
+ * </p>
+ * <p>
+ * Disabled unless the system property <code>jguii.pacing</code> is <code>true</code>,
+ * so input is sent as fast as the backend accepts it by default.
+ * The rate starts at, and never goes above, <code>jguii.pacing.maxRate</code> events
+ * per second, 1000 by default. Each Application's rate is registered over JMX when
+ * {@link Metrics} are enabled.
+ * </p>
+ * @see InteractionHandler
+ */
+public class Pacer implements PacingStatsMXBean {
+	/**
+	 * True if input is paced.
+	 */
+	public static final boolean ENABLED = Boolean.getBoolean("jguii.pacing");
+	/**
+	 * Highest rate, in events per second.
+	 */
+	static final double MAX_RATE = Math.max(1, Integer.getInteger("jguii.pacing.maxRate", 1000));
+	/**
+	 * Lowest rate, in events per second.
+	 */
+	static final double MIN_RATE = Math.min(10, MAX_RATE);
+	/**
+	 * Events per second added to the rate after every ping that shows the Application keeping up.
+	 */
+	static final double INCREASE = 25;
+	/**
+	 * Factor the rate is cut by after a ping that shows input queueing up.
+	 */
+	static final double DECREASE = 0.5;
+	/**
+	 * Number of input events between pings.
+	 */
+	static final int PROBE_EVENTS = 8;
+	/**
+	 * How much slower than the base latency a ping can be before input is taken to be queueing up.
+	 */
+	static final long TARGET = TimeUnit.MILLISECONDS.toNanos(5);
+	/**
+	 * Longest time to wait for a ping.
+	 */
+	static final long TIMEOUT = TimeUnit.MILLISECONDS.toNanos(250);
+	/**
+	 * Number of pings the base latency is taken over, so it follows an Application that has become slower.
+	 */
+	static final int BASE_WINDOW = 32;
+
+	/**
+	 * Name of the Application, used to label metrics and events.
+	 */
+	private final String name;
+	/**
+	 * Window id of the Application.
+	 */
+	private final int id;
+	/**
+	 * Backend the Application is pinged through.
+	 */
+	private final WindowBackend windows;
+
+	private double rate = MAX_RATE;
+	private long delay = delayFor(MAX_RATE);
+	/**
+	 * Value of {@link System#nanoTime()} from which the next event can be sent.
+	 */
+	private long next = System.nanoTime();
+	private long events;
+	private long latency;
+	/**
+	 * Lowest latency over the last full window of pings.
+	 */
+	private long base = Long.MAX_VALUE;
+	/**
+	 * Lowest latency in the window of pings being collected.
+	 */
+	private long windowBase = Long.MAX_VALUE;
+	private int windowPings;
+	private long increases;
+	private long decreases;
+	private long timeouts;
+
+	/**
+	 * Paces input to the Application with window <code>id</code>.
+	 * @param name    Name of the Application.
+	 * @param id      Window id of the Application.
+	 * @param windows Backend to ping the Application through.
+	 */
+	Pacer(String name, int id, WindowBackend windows){
+		this.name = name;
+		this.id = id;
+		this.windows = windows;
+	}
+
+	/**
+	 * Waits until the next input event can be sent.
+	 * <p>
+	 * Call before sending each event, and {@link #sent()} after.
+	 * </p>
+	 */
+	void pace(){
+		long wait;
+		synchronized(this){
+			long now = System.nanoTime();
+			long slot = next - now > 0 ? next : now;
+			next = slot + delay;
+			wait = slot - now;
+		}
+		if(wait > 0)
+			LockSupport.parkNanos(wait);
+	}
+
+	/**
+	 * Counts an input event that has been sent, pinging the Application every {@link #PROBE_EVENTS} events.
+	 */
+	void sent(){
+		boolean probe;
+		synchronized(this){
+			probe = ++events % PROBE_EVENTS == 0;
+		}
+		if(probe)
+			probe();
+	}
+
+	/**
+	 * Pings the Application and adjusts the rate to its latency.
+	 */
+	private void probe(){
+		PingEvent event = new PingEvent();
+		long start = Metrics.start();
+		event.begin();
+		long l = windows.ping(id, TIMEOUT);
+		double r = adjust(l);
+		event.latency = l;
+		event.rate = r;
+		event.commit(name, id);
+		Metrics.record(Operation.PING, start);
+	}
+
+	/**
+	 * Adjusts the rate to the latency of a ping.
+	 * @param l Latency of the ping, or -1 if it was not replied to in time.
+	 * @return The new rate.
+	 */
+	private synchronized double adjust(long l){
+		latency = l;
+		boolean queueing;
+		if(l < 0){
+			timeouts++;
+			queueing = true;
+		}else{
+			windowBase = Math.min(windowBase, l);
+			base = Math.min(base, l);
+			queueing = l - base > TARGET;
+		}
+		if(++windowPings == BASE_WINDOW){
+			base = windowBase;
+			windowBase = Long.MAX_VALUE;
+			windowPings = 0;
+		}
+		if(queueing){
+			rate = Math.max(MIN_RATE, rate * DECREASE);
+			decreases++;
+		}else if(rate < MAX_RATE){
+			rate = Math.min(MAX_RATE, rate + INCREASE);
+			increases++;
+		}
+		delay = delayFor(rate);
+		// the ping has waited out any queue, so the next event can go straight away
+		next = System.nanoTime();
+		return rate;
+	}
+
+	private static long delayFor(double rate){
+		return (long)(TimeUnit.SECONDS.toNanos(1) / rate);
+	}
+
+	/**
+	 * Gets the name of the Application.
+	 * @return The name of the Application.
+	 */
+	public String getName(){
+		return name;
+	}
+
+	@Override
+	public int getWindowId(){
+		return id;
+	}
+
+	@Override
+	public synchronized double getRate(){
+		return rate;
+	}
+
+	@Override
+	public synchronized long getDelayNanos(){
+		return delay;
+	}
+
+	@Override
+	public synchronized long getLatencyNanos(){
+		return latency;
+	}
+
+	@Override
+	public synchronized long getBaseLatencyNanos(){
+		return base == Long.MAX_VALUE ? 0 : base;
+	}
+
+	@Override
+	public synchronized long getEvents(){
+		return events;
+	}
+
+	@Override
+	public synchronized long getIncreases(){
+		return increases;
+	}
+
+	@Override
+	public synchronized long getDecreases(){
+		return decreases;
+	}
+
+	@Override
+	public synchronized long getTimeouts(){
+		return timeouts;
+	}
+}
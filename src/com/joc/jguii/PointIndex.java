@@ -0,0 +1,222 @@
+package com.joc.jguii;
+
+import java.awt.Rectangle;
+import java.util.List;
+
+/**
+ * Spatial index over the {@link NamedPoint}s of an {@link Application}.
+ * <p>
+ * Finds the point under a screen position, or the nearest point to it, without
+ * scanning every point. The points are bucketed into a uniform grid sized so each
+ * cell holds about one point; a point with a box is put in every cell its box
+ * overlaps. Lookups only look at the cells around the position.
+ * </p>
+ * <p>
+ * The index is immutable and safe to use from several threads.
+ * </p>
+ * @see Application#getIndex()
+ */
+public class PointIndex {
+	/**
+	 * Smallest cell size in pixels.
+	 */
+	private static final int MIN_CELL = 16;
+	/**
+	 * Most cells in each direction.
+	 */
+	private static final int MAX_CELLS = 1024;
+
+	private final NamedPoint points[];
+	/**
+	 * Box of each point, or null for points without a box.
+	 */
+	private final Rectangle boxes[];
+	private final int minX, minY, cell, cols, rows;
+	/**
+	 * Indices into {@link #points} for each cell, row major, null for empty cells.
+	 */
+	private final int cells[][];
+
+	/**
+	 * Builds an index.
+	 * @param points The points, in absolute coordinates.
+	 */
+	public PointIndex(List<NamedPoint> points){
+		int n = points.size();
+		this.points = points.toArray(new NamedPoint[n]);
+		boxes = new Rectangle[n];
+		Rectangle extent = null;
+		for(int i = 0; i < n; i++){
+			Rectangle box = this.points[i].getBox();
+			boxes[i] = box == null ? null : new Rectangle(box);
+			Rectangle r = box == null ? new Rectangle(this.points[i].x, this.points[i].y, 1, 1) : box;
+			extent = extent == null ? new Rectangle(r) : extent.union(r);
+		}
+		if(extent == null)
+			extent = new Rectangle(0, 0, 1, 1);
+		minX = extent.x;
+		minY = extent.y;
+		int size = (int)Math.ceil(Math.sqrt((double)extent.width * extent.height / Math.max(n, 1)));
+		size = Math.max(size, MIN_CELL);
+		size = Math.max(size, (Math.max(extent.width, extent.height) + MAX_CELLS - 1) / MAX_CELLS);
+		cell = size;
+		cols = extent.width / cell + 1;
+		rows = extent.height / cell + 1;
+
+		//count the points in each cell, then fill them in
+		int counts[] = new int[cols * rows];
+		for(int i = 0; i < n; i++)
+			forEachCell(i, counts, null);
+		cells = new int[cols * rows][];
+		for(int c = 0; c < counts.length; c++)
+			if(counts[c] > 0)
+				cells[c] = new int[counts[c]];
+		int fill[] = new int[cols * rows];
+		for(int i = 0; i < n; i++)
+			forEachCell(i, fill, cells);
+	}
+
+	/**
+	 * Counts point <code>i</code> in every cell it covers, and stores it there if <code>cells</code> is given.
+	 */
+	private void forEachCell(int i, int counts[], int cells[][]){
+		int x0, y0, x1, y1;
+		if(boxes[i] == null){
+			x0 = x1 = col(points[i].x);
+			y0 = y1 = row(points[i].y);
+		}else{
+			x0 = col(boxes[i].x);
+			y0 = row(boxes[i].y);
+			x1 = col(boxes[i].x + boxes[i].width - 1);
+			y1 = row(boxes[i].y + boxes[i].height - 1);
+		}
+		for(int r = y0; r <= y1; r++){
+			for(int c = x0; c <= x1; c++){
+				int k = r * cols + c;
+				if(cells != null)
+					cells[k][counts[k]] = i;
+				counts[k]++;
+			}
+		}
+	}
+
+	private int col(int x){
+		return Math.min(Math.max((x - minX) / cell, 0), cols - 1);
+	}
+
+	private int row(int y){
+		return Math.min(Math.max((y - minY) / cell, 0), rows - 1);
+	}
+
+	/**
+	 * Gets the number of points in the index.
+	 * @return The number of points.
+	 */
+	public int size(){
+		return points.length;
+	}
+
+	/**
+	 * Finds the point whose box contains <code>(x, y)</code>.
+	 * <p>
+	 * Only points with a box are considered. If several boxes contain the position
+	 * the smallest one is chosen, so a button inside a panel wins over the panel.
+	 * </p>
+	 * @param x X coordinate
+	 * @param y Y coordinate
+	 * @return The point or null if no box contains <code>(x, y)</code>.
+	 */
+	public NamedPoint pointAt(int x, int y){
+		if(x < minX || y < minY || x >= minX + cols * cell || y >= minY + rows * cell)
+			return null;
+		int list[] = cells[row(y) * cols + col(x)];
+		if(list == null)
+			return null;
+		NamedPoint best = null;
+		long bestArea = Long.MAX_VALUE;
+		for(int i : list){
+			Rectangle b = boxes[i];
+			if(b != null && b.contains(x, y) && (long)b.width * b.height < bestArea){
+				best = points[i];
+				bestArea = (long)b.width * b.height;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Finds the point nearest to <code>(x, y)</code>.
+	 * <p>
+	 * The distance to a point with a box is the distance to its box, 0 inside it.
+	 * </p>
+	 * @param x X coordinate
+	 * @param y Y coordinate
+	 * @return The nearest point or null if the index is empty.
+	 */
+	public NamedPoint nearest(int x, int y){
+		return nearest(x, y, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Finds the point nearest to <code>(x, y)</code> that is at most <code>maxDistance</code> away.
+	 * @param x X coordinate
+	 * @param y Y coordinate
+	 * @param maxDistance Largest distance accepted, in pixels.
+	 * @return The nearest point or null if there is none within <code>maxDistance</code>.
+	 * @see #nearest(int, int)
+	 */
+	public NamedPoint nearest(int x, int y, double maxDistance){
+		int cx = col(x), cy = row(y);
+		int rings = Math.max(Math.max(cx, cols - 1 - cx), Math.max(cy, rows - 1 - cy));
+		long limit = maxDistance >= Math.sqrt(Long.MAX_VALUE) ? Long.MAX_VALUE : (long)Math.floor(maxDistance * maxDistance);
+		//distance from (x, y) to the nearest edge of its cell, 0 outside the grid
+		int ox = x - minX - cx * cell, oy = y - minY - cy * cell;
+		long slack = Math.max(0, Math.min(Math.min(ox, cell - 1 - ox), Math.min(oy, cell - 1 - oy)));
+		NamedPoint best = null;
+		long bestDist = Long.MAX_VALUE;
+		for(int r = 0; r <= rings; r++){
+			//every point in ring r is at least r - 1 whole cells and the slack away
+			long reach = (long)(r - 1) * cell + slack;
+			if(r > 0 && reach * reach > Math.min(bestDist, limit))
+				break;
+			for(int row = cy - r; row <= cy + r; row++){
+				if(row < 0 || row >= rows)
+					continue;
+				boolean edge = row == cy - r || row == cy + r;
+				for(int col = cx - r; col <= cx + r; col += edge ? 1 : 2 * r){
+					if(col >= 0 && col < cols){
+						int list[] = cells[row * cols + col];
+						if(list != null){
+							for(int i : list){
+								long d = distanceSq(i, x, y);
+								if(d < bestDist){
+									bestDist = d;
+									best = points[i];
+								}
+							}
+						}
+					}
+					if(r == 0)
+						break;
+				}
+			}
+		}
+		return bestDist <= limit ? best : null;
+	}
+
+	/**
+	 * Gets the squared distance from point <code>i</code>, or its box, to <code>(x, y)</code>.
+	 */
+	private long distanceSq(int i, int x, int y){
+		long dx, dy;
+		Rectangle b = boxes[i];
+		if(b == null){
+			dx = x - points[i].x;
+			dy = y - points[i].y;
+		}else{
+			dx = x < b.x ? b.x - x : x >= b.x + b.width ? x - (b.x + b.width - 1) : 0;
+			dy = y < b.y ? b.y - y : y >= b.y + b.height ? y - (b.y + b.height - 1) : 0;
+		}
+		return dx * dx + dy * dy;
+	}
+}
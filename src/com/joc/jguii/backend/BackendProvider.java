@@ -0,0 +1,32 @@
+package com.joc.jguii.backend;
+
+import java.awt.AWTException;
+
+/**
+ * Service provider for a {@link WindowBackend} and {@link InputBackend} that work together.
+ * <p>
+ * Providers are found with {@link java.util.ServiceLoader} and chosen by name,
+ * see {@link Backends}. New providers are registered by listing them in
+ * <code>META-INF/services/com.joc.jguii.backend.BackendProvider</code>.
+ * </p>
+ */
+public interface BackendProvider {
+	/**
+	 * Gets the name used to select this provider.
+	 * @return The name of this provider, for example "x11".
+	 */
+	String getName();
+
+	/**
+	 * Gets the window backend of this provider.
+	 * @return The window backend.
+	 */
+	WindowBackend getWindowBackend();
+
+	/**
+	 * Gets the input backend of this provider.
+	 * @return The input backend, sending input to windows of {@link #getWindowBackend()}.
+	 * @throws AWTException If the input backend could not be created.
+	 */
+	InputBackend getInputBackend() throws AWTException;
+}
@@ -0,0 +1,49 @@
+package com.joc.jguii.backend;
+
+import java.util.ServiceLoader;
+
+/**
+ * Finds the {@link BackendProvider} to use.
+ * <p>
+ * The provider is chosen by the system property <code>jguii.backend</code>,
+ * "x11" by default. "simulated" selects the in-memory {@link SimulatedDesktop}.
+ * </p>
+ */
+public final class Backends {
+	/**
+	 * Name of the provider used when <code>jguii.backend</code> is not set.
+	 */
+	public static final String DEFAULT = "x11";
+	/**
+	 * The provider named by <code>jguii.backend</code>, loaded on first use.
+	 */
+	private static BackendProvider provider;
+
+	private Backends(){
+	}
+
+	/**
+	 * Gets the provider named by the system property <code>jguii.backend</code>.
+	 * @return The default provider, the same instance on every call.
+	 * @throws IllegalStateException If no provider has that name.
+	 */
+	public static synchronized BackendProvider getDefault(){
+		if(provider == null)
+			provider = get(System.getProperty("jguii.backend", DEFAULT));
+		return provider;
+	}
+
+	/**
+	 * Gets a new instance of the provider with the given name.
+	 * @param name Name of the provider.
+	 * @return The provider with name <code>name</code>.
+	 * @throws IllegalStateException If no provider has that name.
+	 */
+	public static BackendProvider get(String name){
+		for(BackendProvider p : ServiceLoader.load(BackendProvider.class)){
+			if(name.equals(p.getName()))
+				return p;
+		}
+		throw new IllegalStateException("No JGUII backend named " + name);
+	}
+}
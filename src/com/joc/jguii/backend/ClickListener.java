@@ -0,0 +1,19 @@
+package com.joc.jguii.backend;
+
+/**
+ * Receives the mouse clicks recorded by {@link InputBackend#recordClicks(ClickListener)}.
+ * <p>
+ * Called on the recording thread for every button press, so it should return quickly.
+ * </p>
+ */
+public interface ClickListener {
+	/**
+	 * Called when a mouse button is pressed.
+	 * @param time Time of the press in milliseconds, from the backend's clock.
+	 * @param x Absolute x coordinate of the mouse.
+	 * @param y Absolute y coordinate of the mouse.
+	 * @param buttons The button pressed, InputEvent.BUTTON1_DOWN_MASK, BUTTON2_DOWN_MASK or BUTTON3_DOWN_MASK.
+	 * @see java.awt.event.InputEvent
+	 */
+	void click(long time, int x, int y, int buttons);
+}
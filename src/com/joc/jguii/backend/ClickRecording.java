@@ -0,0 +1,12 @@
+package com.joc.jguii.backend;
+
+/**
+ * A recording of mouse clicks, started by {@link InputBackend#recordClicks(ClickListener)}.
+ */
+public interface ClickRecording extends AutoCloseable {
+	/**
+	 * Stops recording. No more clicks are passed to the listener once this returns.
+	 */
+	@Override
+	void close();
+}
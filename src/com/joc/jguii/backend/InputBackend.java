@@ -0,0 +1,65 @@
+package com.joc.jguii.backend;
+
+import java.awt.Point;
+
+/**
+ * Generates dummy keyboard and mouse input.
+ * <p>
+ * Input always goes to the focused window. Implementations 
+ * are obtained from a {@link BackendProvider}.
+ * </p>
+ * @see Backends
+ * @see java.awt.Robot
+ */
+public interface InputBackend {
+	/**
+	 * Presses a key.
+	 * @param keycode Key to press, for example KeyEvent.VK_A
+	 * @see java.awt.event.KeyEvent
+	 */
+	void keyPress(int keycode);
+
+	/**
+	 * Releases a key.
+	 * @param keycode Key to release, for example KeyEvent.VK_A
+	 * @see java.awt.event.KeyEvent
+	 */
+	void keyRelease(int keycode);
+
+	/**
+	 * Moves the mouse to the absolute coordinates <code>(x, y)</code>.
+	 * @param x X coordinate
+	 * @param y Y coordinate
+	 */
+	void mouseMove(int x, int y);
+
+	/**
+	 * Presses one or more mouse buttons.
+	 * @param buttons Button mask, for example InputEvent.BUTTON1_DOWN_MASK
+	 * @see java.awt.event.InputEvent
+	 */
+	void mousePress(int buttons);
+
+	/**
+	 * Releases one or more mouse buttons.
+	 * @param buttons Button mask, for example InputEvent.BUTTON1_DOWN_MASK
+	 * @see java.awt.event.InputEvent
+	 */
+	void mouseRelease(int buttons);
+
+	/**
+	 * Gets the absolute position of the mouse.
+	 * @return The absolute position of the mouse
+	 */
+	Point getMousePosition();
+
+	/**
+	 * Starts recording the mouse clicks made on the display, by the user or by any program.
+	 * @param listener Receives every click until the recording is closed.
+	 * @return The recording, close it to stop.
+	 * @throws UnsupportedOperationException If this backend cannot record clicks.
+	 */
+	default ClickRecording recordClicks(ClickListener listener){
+		throw new UnsupportedOperationException("click recording is not supported by " + getClass().getName());
+	}
+}
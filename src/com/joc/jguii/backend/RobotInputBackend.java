@@ -0,0 +1,71 @@
+package com.joc.jguii.backend;
+
+import java.awt.AWTException;
+import java.awt.MouseInfo;
+import java.awt.Point;
+import java.awt.Robot;
+
+/**
+ * Input backend that generates input with a {@link Robot}.
+ */
+public class RobotInputBackend implements InputBackend {
+	/**
+	 * The Robot that generates all input.
+	 */
+	private final Robot robot;
+
+	/**
+	 * @throws AWTException If the platform does not allow generating input.
+	 */
+	public RobotInputBackend() throws AWTException{
+		robot = new Robot();
+	}
+
+	/**
+	 * Gets the Robot that generates all input.
+	 * @return The Robot used by this backend.
+	 */
+	public Robot getRobot(){
+		return robot;
+	}
+
+	@Override
+	public void keyPress(int keycode){
+		robot.keyPress(keycode);
+	}
+
+	@Override
+	public void keyRelease(int keycode){
+		robot.keyRelease(keycode);
+	}
+
+	@Override
+	public void mouseMove(int x, int y){
+		robot.mouseMove(x, y);
+	}
+
+	@Override
+	public void mousePress(int buttons){
+		robot.mousePress(buttons);
+	}
+
+	@Override
+	public void mouseRelease(int buttons){
+		robot.mouseRelease(buttons);
+	}
+
+	@Override
+	public Point getMousePosition(){
+		return MouseInfo.getPointerInfo().getLocation();
+	}
+
+	/**
+	 * Records clicks with the X RECORD extension, see {@link X11ClickRecorder}.
+	 * @throws IllegalStateException If the display cannot be opened or does not support RECORD.
+	 * @throws UnsupportedOperationException If libxrecordtools was not built.
+	 */
+	@Override
+	public ClickRecording recordClicks(ClickListener listener){
+		return new X11ClickRecorder(listener);
+	}
+}
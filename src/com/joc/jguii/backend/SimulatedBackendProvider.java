@@ -0,0 +1,60 @@
+package com.joc.jguii.backend;
+
+/**
+ * Provider for a {@link SimulatedDesktop}, which is used as both backends.
+ * <p>
+ * Selected by the name "simulated". When loaded through {@link Backends}
+ * the latencies are read from the system properties
+ * <code>jguii.sim.searchLatency</code>, <code>jguii.sim.focusLatency</code>,
+ * <code>jguii.sim.inputLatency</code> and <code>jguii.sim.launchDelay</code>,
+ * all in nanoseconds.
+ * </p>
+ */
+public class SimulatedBackendProvider implements BackendProvider {
+	/**
+	 * The desktop used as both backends.
+	 */
+	private final SimulatedDesktop desktop;
+
+	/**
+	 * Creates a provider for a new desktop configured from system properties.
+	 */
+	public SimulatedBackendProvider(){
+		desktop = new SimulatedDesktop();
+		desktop.setSearchLatency(Long.getLong("jguii.sim.searchLatency", 0));
+		desktop.setFocusLatency(Long.getLong("jguii.sim.focusLatency", 0));
+		desktop.setInputLatency(Long.getLong("jguii.sim.inputLatency", 0));
+		desktop.setLaunchDelay(Long.getLong("jguii.sim.launchDelay", 0));
+	}
+
+	/**
+	 * Creates a provider for the given desktop.
+	 * @param desktop The desktop to use as both backends.
+	 */
+	public SimulatedBackendProvider(SimulatedDesktop desktop){
+		this.desktop = desktop;
+	}
+
+	/**
+	 * Gets the desktop used as both backends.
+	 * @return The simulated desktop.
+	 */
+	public SimulatedDesktop getDesktop(){
+		return desktop;
+	}
+
+	@Override
+	public String getName(){
+		return "simulated";
+	}
+
+	@Override
+	public WindowBackend getWindowBackend(){
+		return desktop;
+	}
+
+	@Override
+	public InputBackend getInputBackend(){
+		return desktop;
+	}
+}
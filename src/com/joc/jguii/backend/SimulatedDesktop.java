@@ -0,0 +1,601 @@
+package com.joc.jguii.backend;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An in-memory desktop that implements both backends without an X server.
+ * <p>
+ * Models a list of windows in the order they were mapped, their stacking
+ * order, the focused window and the mouse position. Launching an application creates a window
+ * titled with its name that appears after {@link #setLaunchDelay(long) the launch delay}.
+ * Every call can be given a latency to stand in for the X server round trip, and
+ * all launches, focus changes and input are kept in a bounded event log.
+ * Each window can also be given a {@link #setInputCost(int, long, int) cost and buffer}
+ * for input, to model an application that cannot keep up with input sent too fast.
+ * Changes to windows are also published as {@link WindowEvent}s.
+ * </p>
+ * <p>
+ * Used to run, profile and load-test the Java side of JGUII, selected with
+ * <code>-Djguii.backend=simulated</code>. All methods are thread safe.
+ * </p>
+ */
+public class SimulatedDesktop implements WindowBackend, InputBackend {
+	/**
+	 * A window on the simulated desktop.
+	 */
+	private static class Window {
+		final int id;
+		String title;
+		/**
+		 * Value of {@link System#nanoTime()} from which this window is mapped.
+		 */
+		final long mappedAt;
+		Rectangle bounds = new Rectangle(0, 0, 640, 480);
+		/**
+		 * What a capture of this window returns, or null for a blank window.
+		 */
+		BufferedImage image;
+		/**
+		 * Time the application takes to handle each input event, in nanoseconds.
+		 */
+		long inputCost;
+		/**
+		 * Most input events waiting to be handled, more are dropped.
+		 */
+		int inputBuffer = Integer.MAX_VALUE;
+		/**
+		 * Value of {@link System#nanoTime()} when all input sent so far will have been handled.
+		 */
+		long busyUntil;
+
+		Window(int id, String title, long mappedAt){
+			this.id = id;
+			this.title = title;
+			this.mappedAt = mappedAt;
+			this.busyUntil = mappedAt;
+		}
+	}
+
+	/**
+	 * The process handed out by {@link SimulatedDesktop#launch(String)}. Destroying it closes its window.
+	 */
+	private class SimulatedProcess extends Process {
+		private final int id;
+		private final CompletableFuture<Process> exit = new CompletableFuture<Process>();
+
+		SimulatedProcess(int id){
+			this.id = id;
+		}
+
+		@Override
+		public OutputStream getOutputStream(){
+			return OutputStream.nullOutputStream();
+		}
+
+		@Override
+		public InputStream getInputStream(){
+			return InputStream.nullInputStream();
+		}
+
+		@Override
+		public InputStream getErrorStream(){
+			return InputStream.nullInputStream();
+		}
+
+		@Override
+		public int waitFor() throws InterruptedException{
+			try{
+				exit.get();
+			}catch(ExecutionException e){
+				throw new IllegalStateException(e);
+			}
+			return 0;
+		}
+
+		@Override
+		public int exitValue(){
+			if(!exit.isDone())
+				throw new IllegalThreadStateException("process has not exited");
+			return 0;
+		}
+
+		@Override
+		public void destroy(){
+			close(id);
+			exit.complete(this);
+		}
+
+		@Override
+		public boolean isAlive(){
+			return !exit.isDone();
+		}
+	}
+
+	/**
+	 * Id given to the first window, later windows count up from it.
+	 */
+	private static final int FIRST_ID = 0x400001;
+
+	/**
+	 * All windows, in the order they were created.
+	 */
+	private final LinkedHashMap<Integer, Window> windows = new LinkedHashMap<Integer, Window>();
+	/**
+	 * Ids of all windows, from the bottom of the stacking order to the top.
+	 * <p>
+	 * Kept apart from {@link #windows} so raising a window does not change the order
+	 * {@link #windowSearch(String)} finds windows in.
+	 * </p>
+	 */
+	private final LinkedHashSet<Integer> stacking = new LinkedHashSet<Integer>();
+	private int nextId = FIRST_ID;
+	private int focused = -1;
+	private int mouseX, mouseY;
+
+	private long searchLatency;
+	private long focusLatency;
+	private long inputLatency;
+	private long launchDelay;
+
+	/**
+	 * Publisher of changes to windows.
+	 */
+	private WindowEventPublisher events = new WindowEventPublisher();
+	/**
+	 * Listeners told about every mouse press.
+	 */
+	private final CopyOnWriteArrayList<ClickListener> clickListeners = new CopyOnWriteArrayList<ClickListener>();
+
+	/**
+	 * The event log, a ring buffer of the most recent events.
+	 */
+	private SimulatedEvent log[];
+	/**
+	 * Total number of events logged, the next one goes in log[logged % log.length].
+	 */
+	private long logged;
+
+	/**
+	 * Creates an empty desktop with no latencies and an event log of 4096 events.
+	 */
+	public SimulatedDesktop(){
+		log = new SimulatedEvent[4096];
+	}
+
+	/**
+	 * Creates a window without launching a process, as if it had been started outside JGUII.
+	 * @param title Title of the window.
+	 * @return The id of the new window.
+	 */
+	public synchronized int createWindow(String title){
+		return createWindow(title, System.nanoTime());
+	}
+
+	private int createWindow(String title, long mappedAt){
+		final int id = nextId++;
+		windows.put(id, new Window(id, title, mappedAt));
+		stacking.add(id);
+		long delay = mappedAt - System.nanoTime();
+		if(delay <= 0)
+			events.publish(WindowEvent.Type.MAPPED, id, title, 0, 0, 0, 0);
+		else
+			CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> mapped(id));
+		return id;
+	}
+
+	/**
+	 * Publishes the mapping of a launched window once its launch delay is over.
+	 */
+	private synchronized void mapped(int id){
+		Window w = windows.get(id);
+		if(w != null)
+			events.publish(WindowEvent.Type.MAPPED, id, w.title, 0, 0, 0, 0);
+	}
+
+	/**
+	 * Changes the title of a window.
+	 * @param id The id of the window.
+	 * @param title The new title.
+	 */
+	public synchronized void setTitle(int id, String title){
+		Window w = windows.get(id);
+		if(w == null)
+			return;
+		w.title = title;
+		events.publish(WindowEvent.Type.TITLE_CHANGED, id, title, 0, 0, 0, 0);
+	}
+
+	/**
+	 * Closes the window with id <code>id</code>.
+	 * @param id The id of the window to close.
+	 */
+	public synchronized void close(int id){
+		if(windows.remove(id) == null)
+			return;
+		stacking.remove(id);
+		log(SimulatedEvent.Type.CLOSE, id, 0, 0);
+		events.publish(WindowEvent.Type.UNMAPPED, id, null, 0, 0, 0, 0);
+		// like X11, closing the active window leaves no window active
+		if(focused == id){
+			focused = -1;
+			events.publish(WindowEvent.Type.ACTIVE_CHANGED, 0, null, 0, 0, 0, 0);
+		}
+	}
+
+	/**
+	 * Gets the titles of all mapped windows.
+	 * @return The titles of all mapped windows, in the order they were mapped.
+	 */
+	public synchronized ArrayList<String> getTitles(){
+		ArrayList<String> titles = new ArrayList<String>();
+		long now = System.nanoTime();
+		for(Window w : windows.values())
+			if(now - w.mappedAt >= 0)
+				titles.add(w.title);
+		return titles;
+	}
+
+	/**
+	 * Gets the ids of all windows in stacking order.
+	 * <p>
+	 * {@link #setWindowFocus(int)} raises a window to the top.
+	 * </p>
+	 * @return The ids of all windows, from the bottom of the stacking order to the top.
+	 */
+	public synchronized ArrayList<Integer> getStackingOrder(){
+		return new ArrayList<Integer>(stacking);
+	}
+
+	@Override
+	public int windowSearch(String search){
+		pause(searchLatency);
+		String lower = search.toLowerCase(Locale.ROOT);
+		long now = System.nanoTime();
+		synchronized(this){
+			for(Window w : windows.values()){
+				if(now - w.mappedAt >= 0 && w.title.toLowerCase(Locale.ROOT).contains(lower))
+					return w.id;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public void setWindowFocus(int id){
+		pause(focusLatency);
+		synchronized(this){
+			if(!windows.containsKey(id))
+				return;
+			// raise the window by moving it to the end of the stacking order
+			stacking.remove(id);
+			stacking.add(id);
+			if(focused != id)
+				events.publish(WindowEvent.Type.ACTIVE_CHANGED, id, null, 0, 0, 0, 0);
+			focused = id;
+			log(SimulatedEvent.Type.FOCUS, id, 0, 0);
+		}
+	}
+
+	@Override
+	public synchronized int getWindowFocus(){
+		return focused;
+	}
+
+	@Override
+	public synchronized Process launch(String name){
+		int id = createWindow(name, System.nanoTime() + launchDelay);
+		log(SimulatedEvent.Type.LAUNCH, id, 0, 0);
+		return new SimulatedProcess(id);
+	}
+
+	/**
+	 * Moves and resizes a window.
+	 * @param id The id of the window.
+	 * @param bounds The new absolute bounds.
+	 */
+	public synchronized void setWindowBounds(int id, Rectangle bounds){
+		Window w = windows.get(id);
+		if(w == null)
+			return;
+		w.bounds = new Rectangle(bounds);
+		events.publish(WindowEvent.Type.GEOMETRY_CHANGED, id, null, bounds.x, bounds.y, bounds.width, bounds.height);
+	}
+
+	/**
+	 * Sets the contents of a window, returned by {@link #capture(int)}.
+	 * <p>
+	 * Also resizes the window to the size of the image.
+	 * </p>
+	 * @param id The id of the window.
+	 * @param image The window contents.
+	 */
+	public synchronized void setWindowImage(int id, BufferedImage image){
+		Window w = windows.get(id);
+		if(w == null)
+			return;
+		w.image = image;
+		setWindowBounds(id, new Rectangle(w.bounds.x, w.bounds.y, image.getWidth(), image.getHeight()));
+	}
+
+	@Override
+	public synchronized Rectangle getWindowBounds(int id){
+		Window w = windows.get(id);
+		return w == null ? null : new Rectangle(w.bounds);
+	}
+
+	@Override
+	public synchronized BufferedImage capture(int id){
+		Window w = windows.get(id);
+		if(w == null)
+			return null;
+		if(w.image != null)
+			return w.image;
+		return new BufferedImage(w.bounds.width, w.bounds.height, BufferedImage.TYPE_INT_RGB);
+	}
+
+	/**
+	 * Sets how fast the application owning a window handles input.
+	 * <p>
+	 * Input sent to the window while the application is busy waits in a buffer of
+	 * <code>buffer</code> events, and input that does not fit is dropped and logged as
+	 * {@link SimulatedEvent.Type#INPUT_DROPPED}.
+	 * </p>
+	 * @param id The id of the window.
+	 * @param nanos Time taken to handle each input event, 0 to handle input instantly.
+	 * @param buffer Most input events waiting to be handled.
+	 */
+	public synchronized void setInputCost(int id, long nanos, int buffer){
+		Window w = windows.get(id);
+		if(w == null)
+			return;
+		w.inputCost = nanos;
+		w.inputBuffer = buffer;
+	}
+
+	/**
+	 * Waits for the input latency and then for the window's application to handle all input sent to it.
+	 */
+	@Override
+	public long ping(int id, long timeout){
+		long start = System.nanoTime();
+		long backlog;
+		pause(inputLatency);
+		synchronized(this){
+			Window w = windows.get(id);
+			if(w == null)
+				return -1;
+			backlog = Math.max(0, w.busyUntil - System.nanoTime());
+		}
+		long elapsed = System.nanoTime() - start;
+		if(elapsed + backlog > timeout){
+			pause(timeout - elapsed);
+			return -1;
+		}
+		pause(backlog);
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * Gets the publisher of changes to windows, replacing it if it was closed.
+	 */
+	@Override
+	public synchronized WindowEventPublisher getWindowEvents(){
+		if(events.isClosed()){
+			events = new WindowEventPublisher();
+			// there are no subscribers yet, this only tells the publisher the titles
+			long now = System.nanoTime();
+			for(Window w : windows.values())
+				if(now - w.mappedAt >= 0)
+					events.publish(WindowEvent.Type.MAPPED, w.id, w.title, 0, 0, 0, 0);
+		}
+		return events;
+	}
+
+	@Override
+	public void keyPress(int keycode){
+		input(SimulatedEvent.Type.KEY_PRESS, keycode, 0);
+	}
+
+	@Override
+	public void keyRelease(int keycode){
+		input(SimulatedEvent.Type.KEY_RELEASE, keycode, 0);
+	}
+
+	@Override
+	public void mouseMove(int x, int y){
+		pause(inputLatency);
+		synchronized(this){
+			mouseX = x;
+			mouseY = y;
+			if(accept(SimulatedEvent.Type.MOUSE_MOVE))
+				log(SimulatedEvent.Type.MOUSE_MOVE, focused, x, y);
+		}
+	}
+
+	/**
+	 * Also passes the press to every click recording, like X RECORD sees input from XTest.
+	 */
+	@Override
+	public void mousePress(int buttons){
+		input(SimulatedEvent.Type.MOUSE_PRESS, buttons, 0);
+		if(!clickListeners.isEmpty()){
+			int x, y;
+			synchronized(this){
+				x = mouseX;
+				y = mouseY;
+			}
+			long time = System.currentTimeMillis();
+			for(ClickListener l : clickListeners)
+				l.click(time, x, y, buttons);
+		}
+	}
+
+	@Override
+	public void mouseRelease(int buttons){
+		input(SimulatedEvent.Type.MOUSE_RELEASE, buttons, 0);
+	}
+
+	@Override
+	public synchronized Point getMousePosition(){
+		return new Point(mouseX, mouseY);
+	}
+
+	@Override
+	public ClickRecording recordClicks(final ClickListener listener){
+		clickListeners.add(listener);
+		return new ClickRecording(){
+			@Override
+			public void close(){
+				clickListeners.remove(listener);
+			}
+		};
+	}
+
+	/**
+	 * Sets the latency of every {@link #windowSearch(String)}.
+	 * @param nanos Latency in nanoseconds.
+	 */
+	public void setSearchLatency(long nanos){
+		searchLatency = nanos;
+	}
+
+	/**
+	 * Sets the latency of every {@link #setWindowFocus(int)}.
+	 * @param nanos Latency in nanoseconds.
+	 */
+	public void setFocusLatency(long nanos){
+		focusLatency = nanos;
+	}
+
+	/**
+	 * Sets the latency of every key and mouse event.
+	 * @param nanos Latency in nanoseconds.
+	 */
+	public void setInputLatency(long nanos){
+		inputLatency = nanos;
+	}
+
+	/**
+	 * Sets how long after {@link #launch(String)} the new window appears.
+	 * @param nanos Delay in nanoseconds.
+	 */
+	public void setLaunchDelay(long nanos){
+		launchDelay = nanos;
+	}
+
+	/**
+	 * Sets the number of events kept in the event log and clears it.
+	 * @param capacity Maximum number of events kept, 0 disables the log.
+	 */
+	public synchronized void setLogCapacity(int capacity){
+		log = new SimulatedEvent[capacity];
+		logged = 0;
+	}
+
+	/**
+	 * Gets the events in the log.
+	 * @return The most recent events, oldest first.
+	 */
+	public synchronized ArrayList<SimulatedEvent> getEvents(){
+		ArrayList<SimulatedEvent> events = new ArrayList<SimulatedEvent>();
+		if(log.length == 0)
+			return events;
+		long first = Math.max(0, logged - log.length);
+		for(long i = first; i < logged; i++)
+			events.add(log[(int)(i % log.length)]);
+		return events;
+	}
+
+	/**
+	 * Gets the total number of events logged, including those no longer kept.
+	 * @return The number of events logged since the log was last cleared.
+	 */
+	public synchronized long getEventCount(){
+		return logged;
+	}
+
+	/**
+	 * Clears the event log.
+	 */
+	public synchronized void clearEvents(){
+		for(int i = 0; i < log.length; i++)
+			log[i] = null;
+		logged = 0;
+	}
+
+	/**
+	 * Removes all windows, clears focus and the event log.
+	 * <p>
+	 * Does not publish window events.
+	 * </p>
+	 */
+	public synchronized void reset(){
+		windows.clear();
+		stacking.clear();
+		focused = -1;
+		clearEvents();
+	}
+
+	private void input(SimulatedEvent.Type type, int a, int b){
+		pause(inputLatency);
+		synchronized(this){
+			if(accept(type))
+				log(type, focused, a, b);
+		}
+	}
+
+	/**
+	 * Queues an input event for the focused window's application, or logs it
+	 * as dropped if the application's buffer is full. Must hold the lock on this desktop.
+	 * @return True if the event was queued.
+	 */
+	private boolean accept(SimulatedEvent.Type type){
+		Window w = windows.get(focused);
+		if(w == null || w.inputCost <= 0)
+			return true;
+		long now = System.nanoTime();
+		long start = w.busyUntil - now > 0 ? w.busyUntil : now;
+		if((start - now) / w.inputCost >= w.inputBuffer){
+			log(SimulatedEvent.Type.INPUT_DROPPED, focused, type.ordinal(), 0);
+			return false;
+		}
+		w.busyUntil = start + w.inputCost;
+		return true;
+	}
+
+	/**
+	 * Adds an event to the log. Must hold the lock on this desktop.
+	 */
+	private void log(SimulatedEvent.Type type, int window, int a, int b){
+		if(log.length == 0)
+			return;
+		log[(int)(logged++ % log.length)] = new SimulatedEvent(System.nanoTime(), type, window, a, b);
+	}
+
+	/**
+	 * Waits for <code>nanos</code> nanoseconds, outside of the lock on this desktop.
+	 */
+	private static void pause(long nanos){
+		if(nanos <= 0)
+			return;
+		long deadline = System.nanoTime() + nanos;
+		// parking is too coarse for short latencies, so spin for the last 50us
+		while(deadline - System.nanoTime() > TimeUnit.MICROSECONDS.toNanos(50))
+			LockSupport.parkNanos(deadline - System.nanoTime() - TimeUnit.MICROSECONDS.toNanos(50));
+		while(deadline - System.nanoTime() > 0)
+			Thread.onSpinWait();
+	}
+}
@@ -0,0 +1,75 @@
+package com.joc.jguii.backend;
+
+/**
+ * An entry in the event log of a {@link SimulatedDesktop}.
+ */
+public class SimulatedEvent {
+	/**
+	 * The kinds of event that are logged.
+	 */
+	public enum Type {
+		LAUNCH, CLOSE, FOCUS, KEY_PRESS, KEY_RELEASE, MOUSE_MOVE, MOUSE_PRESS, MOUSE_RELEASE,
+		/**
+		 * Input the focused window had no room for, <code>a</code> is the ordinal of the type of input dropped.
+		 */
+		INPUT_DROPPED
+	}
+
+	private final long time;
+	private final Type type;
+	private final int window;
+	private final int a;
+	private final int b;
+
+	SimulatedEvent(long time, Type type, int window, int a, int b){
+		this.time = time;
+		this.type = type;
+		this.window = window;
+		this.a = a;
+		this.b = b;
+	}
+
+	/**
+	 * @return The value of {@link System#nanoTime()} when the event happened.
+	 */
+	public long getTime(){
+		return time;
+	}
+
+	/**
+	 * @return The kind of event.
+	 */
+	public Type getType(){
+		return type;
+	}
+
+	/**
+	 * Gets the window the event applies to.
+	 * <p>
+	 * For input events this is the window that had focus.
+	 * </p>
+	 * @return The window id, or -1 if no window was focused.
+	 */
+	public int getWindow(){
+		return window;
+	}
+
+	/**
+	 * @return The keycode for key events, the x coordinate for mouse moves or the button mask for mouse buttons.
+	 */
+	public int getA(){
+		return a;
+	}
+
+	/**
+	 * @return The y coordinate for mouse moves, otherwise 0.
+	 */
+	public int getB(){
+		return b;
+	}
+
+	@Override
+	public String toString(){
+		return time + " " + type + " window=" + window + " " + a + " " + b;
+	}
+}
@@ -0,0 +1,100 @@
+package com.joc.jguii.backend;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Starts, finds and focuses application windows.
+ * <p>
+ * Implementations are obtained from a {@link BackendProvider}.
+ * Window ids are whatever the backend uses to identify windows,
+ * for X11 they are the X window ids.
+ * </p>
+ * @see Backends
+ */
+public interface WindowBackend {
+	/**
+	 * Searches for a window with <code>search</code> in its title.
+	 * <p>
+	 * The search is case insensitive and windows are searched in
+	 * the order they were mapped.
+	 * </p>
+	 * @param search	The string to search for.
+	 * @return 			The id of the window or -1 if none is found.
+	 */
+	int windowSearch(String search);
+
+	/**
+	 * Focuses and raises the window with id <code>id</code>.
+	 * @param id 	The id of the window to focus.
+	 */
+	void setWindowFocus(int id);
+
+	/**
+	 * Gets the id of the currently focused window.
+	 * @return The window id of the currently focused window.
+	 */
+	int getWindowFocus();
+
+	/**
+	 * Starts the application with the given name.
+	 * <p>
+	 * The application's window may appear some time after this returns.
+	 * </p>
+	 * @param name Name of the bin to execute.
+	 * @return The started application's process.
+	 * @throws IOException If the application could not be started.
+	 */
+	Process launch(String name) throws IOException;
+
+	/**
+	 * Gets the position and size of a window.
+	 * @param id 	The id of the window.
+	 * @return The absolute bounds of the window, or null if there is no such window.
+	 * @throws UnsupportedOperationException If this backend cannot get window bounds.
+	 */
+	default Rectangle getWindowBounds(int id){
+		throw new UnsupportedOperationException("window bounds are not supported by " + getClass().getName());
+	}
+
+	/**
+	 * Captures the contents of a window.
+	 * @param id 	The id of the window.
+	 * @return An image of the window, or null if there is no such window.
+	 * @throws UnsupportedOperationException If this backend cannot capture windows.
+	 */
+	default BufferedImage capture(int id){
+		throw new UnsupportedOperationException("window capture is not supported by " + getClass().getName());
+	}
+
+	/**
+	 * Measures how far behind the application owning a window is.
+	 * <p>
+	 * Asks the application to reply and waits for the reply. The request is queued
+	 * behind the input already sent to the application, so the time taken is how long
+	 * the application needs to work through that input. Backends that cannot ask the
+	 * application measure a round trip to the display server instead.
+	 * </p>
+	 * @param id 	The id of the window.
+	 * @param timeout	Longest time to wait for the reply, in nanoseconds.
+	 * @return The time until the reply in nanoseconds, or -1 if there was no reply within <code>timeout</code>.
+	 * This implementation measures nothing and returns 0.
+	 */
+	default long ping(int id, long timeout){
+		return 0;
+	}
+
+	/**
+	 * Gets the publisher of changes to windows.
+	 * <p>
+	 * All subscribers share one publisher, so windows are only watched once
+	 * however many subscribers there are.
+	 * </p>
+	 * @return The publisher of window events, the same instance on every call until it is closed.
+	 * @throws UnsupportedOperationException If this backend cannot watch windows.
+	 */
+	default WindowEventPublisher getWindowEvents(){
+		throw new UnsupportedOperationException("window events are not supported by " + getClass().getName());
+	}
+}
@@ -0,0 +1,143 @@
+package com.joc.jguii.backend;
+
+/**
+ * A change to a window, published by a {@link WindowEventPublisher}.
+ */
+public class WindowEvent {
+	/**
+	 * The kinds of change.
+	 */
+	public enum Type {
+		/**
+		 * The window was added to the list of client windows.
+		 */
+		MAPPED,
+		/**
+		 * The window was removed from the list of client windows.
+		 */
+		UNMAPPED,
+		/**
+		 * The window's title changed, {@link WindowEvent#getTitle()} is the new title.
+		 */
+		TITLE_CHANGED,
+		/**
+		 * The window became the active (focused) window.
+		 */
+		ACTIVE_CHANGED,
+		/**
+		 * The window was moved or resized.
+		 */
+		GEOMETRY_CHANGED
+	}
+
+	private final Type type;
+	private final int window;
+	private final String title;
+	private final int x, y, width, height;
+	private final long time;
+
+	/**
+	 * @param type The kind of change.
+	 * @param window Id of the window.
+	 * @param title Title of the window, or null if not known.
+	 * @param x Absolute x coordinate of the window.
+	 * @param y Absolute y coordinate of the window.
+	 * @param width Width of the window.
+	 * @param height Height of the window.
+	 * @param time Value of {@link System#nanoTime()} when the change was seen.
+	 */
+	public WindowEvent(Type type, int window, String title, int x, int y, int width, int height, long time){
+		this.type = type;
+		this.window = window;
+		this.title = title;
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+		this.time = time;
+	}
+
+	/**
+	 * @return The kind of change.
+	 */
+	public Type getType(){
+		return type;
+	}
+
+	/**
+	 * @return The id of the window. For {@link Type#ACTIVE_CHANGED} it is 0 when no window is active.
+	 */
+	public int getWindow(){
+		return window;
+	}
+
+	/**
+	 * @return The title of the window, or null if not known.
+	 */
+	public String getTitle(){
+		return title;
+	}
+
+	/**
+	 * Gets the absolute x coordinate of the window.
+	 * <p>
+	 * Only set for {@link Type#MAPPED} and {@link Type#GEOMETRY_CHANGED} events.
+	 * </p>
+	 * @return The x coordinate.
+	 */
+	public int getX(){
+		return x;
+	}
+
+	/**
+	 * @return The absolute y coordinate of the window, see {@link #getX()}.
+	 */
+	public int getY(){
+		return y;
+	}
+
+	/**
+	 * @return The width of the window, see {@link #getX()}.
+	 */
+	public int getWidth(){
+		return width;
+	}
+
+	/**
+	 * @return The height of the window, see {@link #getX()}.
+	 */
+	public int getHeight(){
+		return height;
+	}
+
+	/**
+	 * @return The value of {@link System#nanoTime()} when the change was seen.
+	 */
+	public long getTime(){
+		return time;
+	}
+
+	/**
+	 * True if the title of the window contains <code>search</code>, ignoring case.
+	 * <p>
+	 * Matches the same windows as {@link WindowBackend#windowSearch(String)}.
+	 * </p>
+	 * @param search The string to search for.
+	 * @return True if the title is known and contains <code>search</code>.
+	 */
+	public boolean titleContains(String search){
+		if(title == null)
+			return false;
+		int len = search.length();
+		for(int i = 0; i + len <= title.length(); i++){
+			if(title.regionMatches(true, i, search, 0, len))
+				return true;
+		}
+		return false;
+	}
+
+	@Override
+	public String toString(){
+		return type + " window=" + window + " title=" + title + " " + x + "," + y + " " + width + "x" + height;
+	}
+}
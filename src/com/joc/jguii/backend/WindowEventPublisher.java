@@ -0,0 +1,172 @@
+package com.joc.jguii.backend;
+
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes {@link WindowEvent}s from one source to any number of subscribers.
+ * <p>
+ * The source decodes each change once and calls {@link #publish}. The publisher
+ * remembers window titles so every event carries the title of its window.
+ * Each subscriber has its own bounded buffer and receives events on the
+ * executor only as fast as it requests them. When a subscriber's buffer is
+ * full, events for that subscriber are dropped rather than holding up the
+ * source or other subscribers, see {@link #getDropped()}.
+ * </p>
+ * @see WindowBackend#getWindowEvents()
+ */
+public class WindowEventPublisher implements Flow.Publisher<WindowEvent>, AutoCloseable {
+	/**
+	 * Passes on only the events for windows whose title contains a string.
+	 */
+	private static class FilteringSubscriber implements Flow.Subscriber<WindowEvent> {
+		private final Flow.Subscriber<? super WindowEvent> downstream;
+		private final String app;
+		private Flow.Subscription subscription;
+
+		FilteringSubscriber(Flow.Subscriber<? super WindowEvent> downstream, String app){
+			this.downstream = downstream;
+			this.app = app;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription){
+			this.subscription = subscription;
+			downstream.onSubscribe(subscription);
+		}
+
+		@Override
+		public void onNext(WindowEvent event){
+			if(event.titleContains(app))
+				downstream.onNext(event);
+			else
+				subscription.request(1);	//the filtered event used up one of the downstream's requests
+		}
+
+		@Override
+		public void onError(Throwable throwable){
+			downstream.onError(throwable);
+		}
+
+		@Override
+		public void onComplete(){
+			downstream.onComplete();
+		}
+	}
+
+	private final SubmissionPublisher<WindowEvent> publisher;
+	/**
+	 * Titles of all known windows. Only used while holding the lock on this publisher.
+	 */
+	private final HashMap<Integer, String> titles = new HashMap<Integer, String>();
+	private final LongAdder dropped = new LongAdder();
+
+	/**
+	 * Delivers events on the common fork-join pool with the default buffer size.
+	 */
+	public WindowEventPublisher(){
+		this(ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+	}
+
+	/**
+	 * @param executor Executor that delivers events to subscribers.
+	 * @param bufferSize Maximum number of undelivered events per subscriber.
+	 */
+	public WindowEventPublisher(Executor executor, int bufferSize){
+		publisher = new SubmissionPublisher<WindowEvent>(executor, bufferSize);
+	}
+
+	/**
+	 * Subscribes to events for all windows.
+	 * @param subscriber The subscriber.
+	 */
+	@Override
+	public void subscribe(Flow.Subscriber<? super WindowEvent> subscriber){
+		publisher.subscribe(subscriber);
+	}
+
+	/**
+	 * Subscribes to events for the windows of one application.
+	 * <p>
+	 * Only events for windows whose title contains <code>app</code>, ignoring case,
+	 * are passed on. {@link WindowEvent.Type#ACTIVE_CHANGED} events are passed on
+	 * when one of those windows becomes active.
+	 * </p>
+	 * @param subscriber The subscriber.
+	 * @param app The string to search for in window titles.
+	 */
+	public void subscribe(Flow.Subscriber<? super WindowEvent> subscriber, String app){
+		publisher.subscribe(new FilteringSubscriber(subscriber, app));
+	}
+
+	/**
+	 * Publishes a change to a window.
+	 * <p>
+	 * Called by the event source. Never blocks.
+	 * </p>
+	 * @param type The kind of change.
+	 * @param window Id of the window.
+	 * @param title Title of the window for {@link WindowEvent.Type#MAPPED} and 
+	 * {@link WindowEvent.Type#TITLE_CHANGED}, otherwise ignored.
+	 * @param x Absolute x coordinate of the window.
+	 * @param y Absolute y coordinate of the window.
+	 * @param width Width of the window.
+	 * @param height Height of the window.
+	 */
+	public synchronized void publish(WindowEvent.Type type, int window, String title, int x, int y, int width, int height){
+		switch(type){
+		case MAPPED:
+		case TITLE_CHANGED:
+			titles.put(window, title);
+			break;
+		case UNMAPPED:
+			title = titles.remove(window);
+			break;
+		default:
+			title = titles.get(window);
+			break;
+		}
+		if(!publisher.hasSubscribers())
+			return;
+		publisher.offer(new WindowEvent(type, window, title, x, y, width, height, System.nanoTime()), (s, e) -> {
+			dropped.increment();
+			return false;
+		});
+	}
+
+	/**
+	 * Gets the number of events dropped because a subscriber's buffer was full.
+	 * @return The total number of events dropped, counted once per subscriber.
+	 */
+	public long getDropped(){
+		return dropped.sum();
+	}
+
+	/**
+	 * Gets the number of current subscribers.
+	 * @return The number of subscribers.
+	 */
+	public int getSubscriberCount(){
+		return publisher.getNumberOfSubscribers();
+	}
+
+	/**
+	 * Tells whether {@link #close()} has been called.
+	 * @return True if no more events are published.
+	 */
+	public boolean isClosed(){
+		return publisher.isClosed();
+	}
+
+	/**
+	 * Completes every subscription. No more events are published.
+	 */
+	@Override
+	public void close(){
+		publisher.close();
+	}
+}
@@ -0,0 +1,33 @@
+package com.joc.jguii.backend;
+
+import java.awt.AWTException;
+
+/**
+ * Provider for the X11 backends, the native {@link X11WindowBackend} and a {@link RobotInputBackend}.
+ * <p>
+ * Selected by the name "x11", the default.
+ * </p>
+ */
+public class X11BackendProvider implements BackendProvider {
+	private X11WindowBackend windows;
+	private RobotInputBackend input;
+
+	@Override
+	public String getName(){
+		return "x11";
+	}
+
+	@Override
+	public synchronized WindowBackend getWindowBackend(){
+		if(windows == null)
+			windows = new X11WindowBackend();
+		return windows;
+	}
+
+	@Override
+	public synchronized InputBackend getInputBackend() throws AWTException{
+		if(input == null)
+			input = new RobotInputBackend();
+		return input;
+	}
+}
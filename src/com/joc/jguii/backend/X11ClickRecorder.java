@@ -0,0 +1,131 @@
+package com.joc.jguii.backend;
+
+import java.awt.event.InputEvent;
+
+/**
+ * Records mouse clicks with the X RECORD extension.
+ * <p>
+ * Opens two connections to the X server, one to control the recording
+ * context and one it is delivered on, and intercepts every
+ * <code>ButtonPress</code> of buttons 1 to 3 before any client sees it, so
+ * clicks are recorded whichever window they go to. A single thread decodes
+ * each event natively and passes it to the listener. Scroll wheel buttons
+ * are ignored.
+ * </p>
+ * @see RobotInputBackend#recordClicks(ClickListener)
+ */
+class X11ClickRecorder implements ClickRecording {
+	/**
+	 * Why libxrecordtools could not be loaded, or null if it was.
+	 */
+	private static final UnsatisfiedLinkError LOAD_ERROR;
+
+	/*
+	 * Load native libs, kept apart from xwindowtools since they need libXtst
+	 */
+	static{
+		UnsatisfiedLinkError error = null;
+		try{
+			System.loadLibrary("xrecordtools");
+		}catch(UnsatisfiedLinkError e){
+			error = e;
+		}
+		LOAD_ERROR = error;
+	}
+
+	/**
+	 * Button masks for X buttons 1, 2 and 3.
+	 */
+	private static final int BUTTONS[] = {0, InputEvent.BUTTON1_DOWN_MASK, InputEvent.BUTTON2_DOWN_MASK,
+			InputEvent.BUTTON3_DOWN_MASK};
+
+	private final ClickListener listener;
+	/**
+	 * Native recorder state, 0 once the recorder has stopped.
+	 */
+	private long handle;
+	private final Thread reader;
+
+	/**
+	 * Creates the recording context and starts the recording thread.
+	 * @param listener Receives every click.
+	 * @throws IllegalStateException If the X display could not be opened or does not support RECORD.
+	 * @throws UnsupportedOperationException If libxrecordtools was not built, since the XTest/RECORD headers were missing.
+	 */
+	X11ClickRecorder(ClickListener listener){
+		if(LOAD_ERROR != null)
+			throw new UnsupportedOperationException("click recording needs libxrecordtools, built when the XTest/RECORD headers are installed", LOAD_ERROR);
+		this.listener = listener;
+		handle = open();
+		if(handle == 0)
+			throw new IllegalStateException("cannot open X display or RECORD extension is missing");
+		reader = new Thread("jguii-x11-record"){
+			@Override
+			public void run(){
+				try{
+					X11ClickRecorder.this.run(handle);
+				}finally{
+					synchronized(X11ClickRecorder.this){
+						free(handle);
+						handle = 0;
+					}
+				}
+			}
+		};
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * Opens the connections and creates a recording context for button presses.
+	 * @return The native recorder state, or 0 if the display could not be opened or has no RECORD extension.
+	 */
+	private static native long open();
+
+	/**
+	 * Records and dispatches clicks until {@link #wakeup(long)} is called.
+	 * @param handle The native recorder state.
+	 */
+	private native void run(long handle);
+
+	/**
+	 * Makes {@link #run(long)} return.
+	 * @param handle The native recorder state.
+	 */
+	private static native void wakeup(long handle);
+
+	/**
+	 * Frees the recording context, closes the connections and frees the state.
+	 * @param handle The native recorder state.
+	 */
+	private static native void free(long handle);
+
+	/**
+	 * Called by the recording thread for every button press.
+	 * @param time X server time of the press in milliseconds.
+	 * @param button X button number, 1 to 3.
+	 */
+	private void dispatch(long time, int x, int y, int button){
+		try{
+			listener.click(time, x, y, BUTTONS[button]);
+		}catch(RuntimeException e){
+			e.printStackTrace();	//don't let a bad listener stop the recording
+		}
+	}
+
+	/**
+	 * Stops the recording thread.
+	 */
+	@Override
+	public void close(){
+		synchronized(this){
+			if(handle != 0)
+				wakeup(handle);
+		}
+		try{
+			reader.join();
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.joc.jguii.backend;
+
+import java.awt.AWTException;
+import java.awt.Rectangle;
+import java.awt.Robot;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Window backend for X11, implemented natively in xwindowtools.
+ * <p>
+ * Requires a window manager that maintains <code>_NET_CLIENT_LIST</code>
+ * and <code>_NET_ACTIVE_WINDOW</code>.
+ * </p>
+ * <p>
+ * All instances share one connection to the X server, opened by the first call
+ * and kept open, and calls are serialised on it. Native methods throw
+ * {@link IllegalStateException} if the display cannot be opened. Titles are
+ * compared up to their first 4096 bytes, so longer searches never match.
+ * </p>
+ */
+public class X11WindowBackend implements WindowBackend {
+	/**
+	 * Reader of window events, started on first use.
+	 */
+	private X11WindowEvents events;
+	/**
+	 * Robot used to capture windows, created on first use.
+	 */
+	private Robot robot;
+
+	/*
+	 * Load native libs
+	 */
+	static{
+		System.loadLibrary("xwindowtools");
+	}
+
+	@Override
+	public native int windowSearch(String search);
+
+	@Override
+	public native void setWindowFocus(int id);		//focuses and raises the specified window
+
+	@Override
+	public native int getWindowFocus();			//returns id of currently focused window
+
+	/**
+	 * Gets the absolute position and size of a window.
+	 * @param id 	The id of the window.
+	 * @param geometry	Receives x, y, width and height.
+	 * @return True if the window exists.
+	 */
+	private native boolean windowGeometry(int id, int geometry[]);
+
+	@Override
+	public Rectangle getWindowBounds(int id){
+		int g[] = new int[4];
+		if(!windowGeometry(id, g))
+			return null;
+		return new Rectangle(g[0], g[1], g[2], g[3]);
+	}
+
+	/**
+	 * Pings with <code>_NET_WM_PING</code> if the window supports it, otherwise waits for an
+	 * <code>XSync</code> round trip. Pings have a connection of their own, so other calls
+	 * do not wait for them, but pings from different threads are serialised.
+	 */
+	@Override
+	public native long ping(int id, long timeout);
+
+	/**
+	 * Captures the screen area covered by the window, so other windows on top of it are captured too.
+	 */
+	@Override
+	public BufferedImage capture(int id){
+		Rectangle bounds = getWindowBounds(id);
+		if(bounds == null)
+			return null;
+		synchronized(this){
+			if(robot == null){
+				try{
+					robot = new Robot();
+				}catch(AWTException e){
+					throw new IllegalStateException(e);
+				}
+			}
+		}
+		return robot.createScreenCapture(bounds);
+	}
+
+	/**
+	 * Starts the application by executing the binary located at "/usr/bin/" with the name <code>name</code>.
+	 */
+	@Override
+	public Process launch(String name) throws IOException{
+		return Runtime.getRuntime().exec("/usr/bin/" + name);
+	}
+
+	/**
+	 * Starts a thread with its own X connection that watches for window changes the first time it is called,
+	 * and again if the last one was closed.
+	 */
+	@Override
+	public synchronized WindowEventPublisher getWindowEvents(){
+		if(events == null || events.isClosed())
+			events = new X11WindowEvents();
+		return events;
+	}
+}
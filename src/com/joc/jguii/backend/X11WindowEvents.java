@@ -0,0 +1,128 @@
+package com.joc.jguii.backend;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads window events from the X server and publishes them.
+ * <p>
+ * Opens its own connection to the X server and selects
+ * <code>SubstructureNotify</code> and <code>PropertyChange</code> on the root
+ * window, and <code>StructureNotify</code> and <code>PropertyChange</code> on
+ * every client window. A single reader thread decodes each X event once,
+ * natively, and publishes it to all subscribers. Changes to
+ * <code>_NET_CLIENT_LIST</code> are published as mapped and unmapped windows
+ * and changes to <code>_NET_ACTIVE_WINDOW</code> as the active window changing.
+ * </p>
+ * @see X11WindowBackend#getWindowEvents()
+ */
+class X11WindowEvents extends WindowEventPublisher {
+	/*
+	 * Load native libs
+	 */
+	static{
+		System.loadLibrary("xwindowtools");
+	}
+
+	private static final WindowEvent.Type TYPES[] = WindowEvent.Type.values();
+
+	/**
+	 * Native reader state, 0 once the reader has stopped.
+	 */
+	private long handle;
+	private final Thread reader;
+	/**
+	 * Set by {@link #close()}, before the reader has stopped.
+	 */
+	private volatile boolean closing;
+
+	/**
+	 * Opens the X connection and starts the reader thread.
+	 * @throws IllegalStateException If the X display could not be opened.
+	 */
+	X11WindowEvents(){
+		handle = open();
+		if(handle == 0)
+			throw new IllegalStateException("cannot open X display");
+		reader = new Thread("jguii-x11-events"){
+			@Override
+			public void run(){
+				try{
+					X11WindowEvents.this.run(handle);
+				}finally{
+					synchronized(X11WindowEvents.this){
+						free(handle);
+						handle = 0;
+					}
+					X11WindowEvents.super.close();
+				}
+			}
+		};
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * Opens a connection to the X server for the reader.
+	 * @return The native reader state, or 0 if the display could not be opened.
+	 */
+	private static native long open();
+
+	/**
+	 * Reads and dispatches events until {@link #wakeup(long)} is called.
+	 * @param handle The native reader state.
+	 */
+	private native void run(long handle);
+
+	/**
+	 * Makes {@link #run(long)} return.
+	 * @param handle The native reader state.
+	 */
+	private static native void wakeup(long handle);
+
+	/**
+	 * Closes the reader's X connection and frees its state.
+	 * @param handle The native reader state.
+	 */
+	private static native void free(long handle);
+
+	/**
+	 * Called by the reader thread for every decoded event.
+	 * @param type Ordinal of the {@link WindowEvent.Type}.
+	 * @param window Id of the window.
+	 * @param title The title as bytes of UTF-8, or null if not read.
+	 */
+	private void dispatch(int type, int window, byte title[], int x, int y, int width, int height){
+		try{
+			publish(TYPES[type], window, title == null ? null : new String(title, StandardCharsets.UTF_8),
+					x, y, width, height);
+		}catch(RuntimeException e){
+			e.printStackTrace();	//don't let a bad event stop the reader
+		}
+	}
+
+	/**
+	 * Tells whether the reader has been closed or is being closed.
+	 * @return True once {@link #close()} has been called or the reader has stopped.
+	 */
+	@Override
+	public boolean isClosed(){
+		return closing || super.isClosed();
+	}
+
+	/**
+	 * Stops the reader thread and completes every subscription.
+	 */
+	@Override
+	public void close(){
+		closing = true;
+		synchronized(this){
+			if(handle != 0)
+				wakeup(handle);
+		}
+		try{
+			reader.join();
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package com.joc.jguii.locate;
+
+/**
+ * Computes dot products of float arrays, the inner loop of template matching.
+ */
+interface DotKernel {
+	/**
+	 * Gets the dot product of <code>len</code> elements of <code>a</code> and <code>b</code>.
+	 * @param a First array.
+	 * @param aOff Index of the first element of <code>a</code>.
+	 * @param b Second array.
+	 * @param bOff Index of the first element of <code>b</code>.
+	 * @param len Number of elements.
+	 * @return The sum of <code>a[aOff + i] * b[bOff + i]</code>.
+	 */
+	float dot(float a[], int aOff, float b[], int bOff, int len);
+}
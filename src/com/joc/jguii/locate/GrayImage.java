@@ -0,0 +1,126 @@
+package com.joc.jguii.locate;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * A grayscale image with float pixels, as used by {@link TemplateLocator}.
+ * <p>
+ * Keeps summed-area tables of the pixels and their squares so the mean and
+ * variance of any rectangle can be found in constant time.
+ * </p>
+ */
+public class GrayImage {
+	private final int width;
+	private final int height;
+	/**
+	 * Pixels in rows, values from 0 to 255.
+	 */
+	final float pixels[];
+	/**
+	 * Summed-area tables of pixels and squared pixels, (width + 1) * (height + 1), built on first use.
+	 */
+	private volatile double sum[];
+	private double sumSq[];
+
+	GrayImage(int width, int height, float pixels[]){
+		this.width = width;
+		this.height = height;
+		this.pixels = pixels;
+	}
+
+	/**
+	 * Converts an image to grayscale.
+	 * @param image The image to convert.
+	 * @return The luminance of <code>image</code>.
+	 */
+	public static GrayImage of(BufferedImage image){
+		int w = image.getWidth(), h = image.getHeight();
+		float pixels[] = new float[w * h];
+		int row[] = new int[w];
+		for(int y = 0; y < h; y++){
+			image.getRGB(0, y, w, 1, row, 0, w);
+			for(int x = 0; x < w; x++){
+				int rgb = row[x];
+				pixels[y * w + x] = 0.299f * ((rgb >> 16) & 0xff) + 0.587f * ((rgb >> 8) & 0xff) + 0.114f * (rgb & 0xff);
+			}
+		}
+		return new GrayImage(w, h, pixels);
+	}
+
+	/**
+	 * @return The width in pixels.
+	 */
+	public int getWidth(){
+		return width;
+	}
+
+	/**
+	 * @return The height in pixels.
+	 */
+	public int getHeight(){
+		return height;
+	}
+
+	/**
+	 * Halves the size of this image by averaging each 2x2 block.
+	 * @return The next level of the image pyramid.
+	 */
+	GrayImage half(){
+		int w = width / 2, h = height / 2;
+		float out[] = new float[w * h];
+		for(int y = 0; y < h; y++){
+			int r0 = 2 * y * width, r1 = r0 + width;
+			for(int x = 0; x < w; x++)
+				out[y * w + x] = (pixels[r0 + 2 * x] + pixels[r0 + 2 * x + 1] + pixels[r1 + 2 * x] + pixels[r1 + 2 * x + 1]) * 0.25f;
+		}
+		return new GrayImage(w, h, out);
+	}
+
+	/**
+	 * Gets the sum of the pixels in a rectangle.
+	 */
+	double sum(int x, int y, int w, int h){
+		tables();
+		return area(sum, x, y, w, h);
+	}
+
+	/**
+	 * Gets the sum of the squares of the pixels in a rectangle.
+	 */
+	double sumSq(int x, int y, int w, int h){
+		tables();
+		return area(sumSq, x, y, w, h);
+	}
+
+	private double area(double table[], int x, int y, int w, int h){
+		int stride = width + 1;
+		return table[(y + h) * stride + x + w] - table[y * stride + x + w] - table[(y + h) * stride + x] + table[y * stride + x];
+	}
+
+	private void tables(){
+		if(sum != null)
+			return;
+		synchronized(this){
+			if(sum == null)
+				buildTables();
+		}
+	}
+
+	private void buildTables(){
+		int stride = width + 1;
+		double s[] = new double[stride * (height + 1)];
+		double sq[] = new double[stride * (height + 1)];
+		for(int y = 0; y < height; y++){
+			double row = 0, rowSq = 0;
+			for(int x = 0; x < width; x++){
+				double p = pixels[y * width + x];
+				row += p;
+				rowSq += p * p;
+				s[(y + 1) * stride + x + 1] = s[y * stride + x + 1] + row;
+				sq[(y + 1) * stride + x + 1] = sq[y * stride + x + 1] + rowSq;
+			}
+		}
+		sumSq = sq;
+		sum = s;	//volatile write publishes sumSq too
+	}
+}
@@ -0,0 +1,42 @@
+package com.joc.jguii.locate;
+
+/**
+ * Where a template was found in an image.
+ */
+public class Match {
+	private final int x;
+	private final int y;
+	private final double score;
+
+	Match(int x, int y, double score){
+		this.x = x;
+		this.y = y;
+		this.score = score;
+	}
+
+	/**
+	 * @return The x coordinate of the top left corner of the match.
+	 */
+	public int getX(){
+		return x;
+	}
+
+	/**
+	 * @return The y coordinate of the top left corner of the match.
+	 */
+	public int getY(){
+		return y;
+	}
+
+	/**
+	 * @return The normalized cross-correlation of the match, from -1 to 1 where 1 is a perfect match.
+	 */
+	public double getScore(){
+		return score;
+	}
+
+	@Override
+	public String toString(){
+		return "(" + x + ", " + y + ") score=" + score;
+	}
+}
@@ -0,0 +1,133 @@
+package com.joc.jguii.locate;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.ImageIO;
+
+import com.joc.jguii.backend.WindowBackend;
+
+/**
+ * Finds reference images inside application windows.
+ * <p>
+ * Captures the window and finds the image with a {@link TemplateLocator}.
+ * Where the image was found is cached for each window and window size, so it is only
+ * searched for again when the window is resized or {@link #clearCache()} is called.
+ * Reference images are loaded once and shared by all windows.
+ * </p>
+ * @see com.joc.jguii.NamedPoint#getImage()
+ */
+public class PointLocator {
+	/**
+	 * Cache key, a reference image, a window and its size.
+	 */
+	private static final class Key {
+		final String image;
+		final int id;
+		final int width, height;
+
+		Key(String image, int id, int width, int height){
+			this.image = image;
+			this.id = id;
+			this.width = width;
+			this.height = height;
+		}
+
+		@Override
+		public boolean equals(Object o){
+			if(!(o instanceof Key))
+				return false;
+			Key k = (Key)o;
+			return image.equals(k.image) && id == k.id && width == k.width && height == k.height;
+		}
+
+		@Override
+		public int hashCode(){
+			return Objects.hash(image, id, width, height);
+		}
+	}
+
+	private final TemplateLocator locator;
+	/**
+	 * Loaded reference images, by path.
+	 */
+	private final ConcurrentHashMap<String, GrayImage> images = new ConcurrentHashMap<String, GrayImage>();
+	/**
+	 * Where each image was found in each window, relative to the window.
+	 */
+	private final ConcurrentHashMap<Key, Point> found = new ConcurrentHashMap<Key, Point>();
+
+	/**
+	 * Creates a locator that uses a default {@link TemplateLocator}.
+	 */
+	public PointLocator(){
+		this(new TemplateLocator());
+	}
+
+	/**
+	 * @param locator Locator used to search window captures.
+	 */
+	public PointLocator(TemplateLocator locator){
+		this.locator = locator;
+	}
+
+	/**
+	 * Finds an image in a window.
+	 * @param image Path to the reference image.
+	 * @param windows Backend used to get the window's bounds and capture it.
+	 * @param id Window id.
+	 * @return The absolute position of the top left corner of the image, or null if it was not found.
+	 * @throws IllegalArgumentException If the reference image could not be read.
+	 */
+	public Point locate(String image, WindowBackend windows, int id){
+		Rectangle bounds = windows.getWindowBounds(id);
+		if(bounds == null)
+			return null;
+		Key key = new Key(image, id, bounds.width, bounds.height);
+		Point rel = found.get(key);
+		if(rel == null){
+			BufferedImage capture = windows.capture(id);
+			if(capture == null)
+				return null;
+			Match m = locator.locate(GrayImage.of(capture), load(image));
+			if(m == null)
+				return null;
+			rel = new Point(m.getX(), m.getY());
+			found.put(key, rel);
+		}
+		return new Point(bounds.x + rel.x, bounds.y + rel.y);
+	}
+
+	/**
+	 * Forgets where every image was found, for example after the theme or layout changed.
+	 */
+	public void clearCache(){
+		found.clear();
+	}
+
+	/**
+	 * Forgets where images were found in one window, for example after it was closed.
+	 * @param id Window id.
+	 */
+	public void clearCache(int id){
+		found.keySet().removeIf(k -> k.id == id);
+	}
+
+	private GrayImage load(String path){
+		return images.computeIfAbsent(path, p -> {
+			try{
+				BufferedImage img = ImageIO.read(new File(p));
+				if(img == null)
+					throw new IllegalArgumentException("not a supported image: " + p);
+				return GrayImage.of(img);
+			}catch(IOException e){
+				throw new IllegalArgumentException("cannot read image " + p, e);
+			}
+		});
+	}
+}
@@ -0,0 +1,14 @@
+package com.joc.jguii.locate;
+
+/**
+ * Plain Java {@link DotKernel}, used when the Vector API is not available.
+ */
+class ScalarDotKernel implements DotKernel {
+	@Override
+	public float dot(float a[], int aOff, float b[], int bOff, int len){
+		float sum = 0;
+		for(int i = 0; i < len; i++)
+			sum += a[aOff + i] * b[bOff + i];
+		return sum;
+	}
+}
@@ -0,0 +1,270 @@
+package com.joc.jguii.locate;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds a template image inside a larger image.
+ * <p>
+ * Scores positions by normalized cross-correlation, so matches are found
+ * regardless of brightness and contrast. The search runs coarse to fine over
+ * image pyramids: every position is scored at the smallest level, in parallel
+ * over tiles of rows, and the best candidates are refined level by level.
+ * The inner dot products use the Vector API when the JVM is started with
+ * <code>--add-modules jdk.incubator.vector</code>, and plain Java otherwise.
+ * Set the system property <code>jguii.simd</code> to <code>false</code> to
+ * always use plain Java.
+ * </p>
+ */
+public class TemplateLocator {
+	/**
+	 * Score below which a match is not accepted by default.
+	 */
+	public static final double DEFAULT_THRESHOLD = 0.9;
+	/**
+	 * Pyramid levels stop before the template gets narrower or shorter than this.
+	 */
+	private static final int MIN_TEMPLATE = 8;
+	/**
+	 * Most pyramid levels above full size.
+	 */
+	private static final int MAX_LEVELS = 4;
+	/**
+	 * Number of candidates carried from the smallest level to the next.
+	 */
+	private static final int CANDIDATES = 8;
+	/**
+	 * Distance searched around each candidate at the next level.
+	 */
+	private static final int REFINE = 2;
+
+	private final DotKernel kernel;
+	private final ForkJoinPool pool;
+	private final double threshold;
+
+	/**
+	 * Creates a locator with the default threshold that searches on the common fork-join pool.
+	 */
+	public TemplateLocator(){
+		this(DEFAULT_THRESHOLD, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param threshold Lowest score accepted as a match.
+	 * @param pool Pool the search runs on.
+	 */
+	public TemplateLocator(double threshold, ForkJoinPool pool){
+		this.threshold = threshold;
+		this.pool = pool;
+		this.kernel = kernel();
+	}
+
+	/**
+	 * True if this locator uses the Vector API.
+	 * @return True if dot products are computed with SIMD instructions.
+	 */
+	public boolean isVectorized(){
+		return !(kernel instanceof ScalarDotKernel);
+	}
+
+	/**
+	 * Finds <code>template</code> in <code>image</code>.
+	 * @param image The image to search.
+	 * @param template The image to search for.
+	 * @return The best match, or null if none scores at least the threshold.
+	 */
+	public Match locate(BufferedImage image, BufferedImage template){
+		return locate(GrayImage.of(image), GrayImage.of(template));
+	}
+
+	/**
+	 * Finds <code>template</code> in <code>image</code>.
+	 * @param image The image to search.
+	 * @param template The image to search for.
+	 * @return The best match, or null if none scores at least the threshold.
+	 */
+	public Match locate(GrayImage image, GrayImage template){
+		if(template.getWidth() > image.getWidth() || template.getHeight() > image.getHeight())
+			return null;
+
+		ArrayList<GrayImage> images = new ArrayList<GrayImage>();
+		ArrayList<Template> templates = new ArrayList<Template>();
+		images.add(image);
+		templates.add(new Template(template));
+		while(images.size() <= MAX_LEVELS && template.getWidth() / 2 >= MIN_TEMPLATE && template.getHeight() / 2 >= MIN_TEMPLATE){
+			image = image.half();
+			template = template.half();
+			images.add(image);
+			templates.add(new Template(template));
+		}
+
+		int top = images.size() - 1;
+		Match candidates[] = pool.invoke(new Search(images.get(top), templates.get(top), 0, images.get(top).getHeight() - template.getHeight() + 1));
+		for(int level = top - 1; level >= 0; level--){
+			for(int i = 0; i < candidates.length; i++){
+				if(candidates[i] != null)
+					candidates[i] = refine(images.get(level), templates.get(level), candidates[i]);
+			}
+		}
+
+		Match best = null;
+		for(Match m : candidates)
+			if(m != null && (best == null || m.getScore() > best.getScore()))
+				best = m;
+		return best != null && best.getScore() >= threshold ? best : null;
+	}
+
+	/**
+	 * Searches the positions around a candidate from the level above.
+	 */
+	private Match refine(GrayImage image, Template t, Match m){
+		Match best = null;
+		int maxX = image.getWidth() - t.width, maxY = image.getHeight() - t.height;
+		for(int y = Math.max(0, 2 * m.getY() - REFINE); y <= Math.min(maxY, 2 * m.getY() + REFINE); y++){
+			for(int x = Math.max(0, 2 * m.getX() - REFINE); x <= Math.min(maxX, 2 * m.getX() + REFINE); x++){
+				double score = score(image, t, x, y);
+				if(best == null || score > best.getScore())
+					best = new Match(x, y, score);
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Gets the normalized cross-correlation of the template with the image at <code>(x, y)</code>.
+	 */
+	private double score(GrayImage image, Template t, int x, int y){
+		int n = t.width * t.height;
+		double sum = image.sum(x, y, t.width, t.height);
+		double var = image.sumSq(x, y, t.width, t.height) - sum * sum / n;
+		if(t.norm == 0)	//a flat template only matches a flat area of the same brightness
+			return var < n ? 1 - Math.abs(sum / n - t.mean) / 255 : 0;
+		if(var <= 1e-6)
+			return 0;
+		float pixels[] = image.pixels;
+		double dot = 0;
+		for(int r = 0; r < t.height; r++)
+			dot += kernel.dot(t.zeroMean, r * t.width, pixels, (y + r) * image.getWidth() + x, t.width);
+		return Math.min(1, dot / Math.sqrt(var * t.norm));	//float rounding can push a perfect match just over 1
+	}
+
+	/**
+	 * A template at one pyramid level, with its mean subtracted.
+	 */
+	private static class Template {
+		final int width, height;
+		final float zeroMean[];
+		final double mean;
+		/**
+		 * Sum of squares of {@link #zeroMean}.
+		 */
+		final double norm;
+
+		Template(GrayImage t){
+			width = t.getWidth();
+			height = t.getHeight();
+			double s = 0;
+			for(float p : t.pixels)
+				s += p;
+			mean = s / t.pixels.length;
+			zeroMean = new float[t.pixels.length];
+			double sq = 0;
+			for(int i = 0; i < zeroMean.length; i++){
+				zeroMean[i] = (float)(t.pixels[i] - mean);
+				sq += zeroMean[i] * zeroMean[i];
+			}
+			norm = sq < 1e-6 ? 0 : sq;
+		}
+	}
+
+	/**
+	 * Scores every position in a range of rows and keeps the best {@link #CANDIDATES}.
+	 */
+	private class Search extends RecursiveTask<Match[]> {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * Rows of positions scored by a single task.
+		 */
+		private static final int TILE_ROWS = 8;
+
+		private final GrayImage image;
+		private final Template t;
+		private final int fromY, toY;
+
+		Search(GrayImage image, Template t, int fromY, int toY){
+			this.image = image;
+			this.t = t;
+			this.fromY = fromY;
+			this.toY = toY;
+		}
+
+		@Override
+		protected Match[] compute(){
+			if(toY - fromY > TILE_ROWS){
+				int mid = (fromY + toY) >>> 1;
+				Search lower = new Search(image, t, fromY, mid);
+				lower.fork();
+				Match upper[] = new Search(image, t, mid, toY).compute();
+				return merge(lower.join(), upper);
+			}
+			Match best[] = new Match[CANDIDATES];
+			int maxX = image.getWidth() - t.width;
+			for(int y = fromY; y < toY; y++){
+				for(int x = 0; x <= maxX; x++){
+					double score = score(image, t, x, y);
+					if(best[CANDIDATES - 1] == null || score > best[CANDIDATES - 1].getScore())
+						insert(best, new Match(x, y, score));
+				}
+			}
+			return best;
+		}
+	}
+
+	/**
+	 * Inserts a match into an array sorted by descending score, dropping the last.
+	 * <p>
+	 * Keeps candidates apart: a match within {@link #REFINE} pixels of one already
+	 * in the array replaces it if it scores higher and is discarded otherwise.
+	 * </p>
+	 */
+	private static void insert(Match best[], Match m){
+		int i = best.length - 1;
+		for(int j = 0; j < best.length && best[j] != null; j++){
+			if(Math.abs(best[j].getX() - m.getX()) <= REFINE && Math.abs(best[j].getY() - m.getY()) <= REFINE){
+				if(best[j].getScore() >= m.getScore())
+					return;
+				i = j;	//reuse the neighbour's slot
+				break;
+			}
+		}
+		while(i > 0 && (best[i - 1] == null || best[i - 1].getScore() < m.getScore())){
+			best[i] = best[i - 1];
+			i--;
+		}
+		best[i] = m;
+	}
+
+	private static Match[] merge(Match a[], Match b[]){
+		for(Match m : b)
+			if(m != null && (a[a.length - 1] == null || m.getScore() > a[a.length - 1].getScore()))
+				insert(a, m);
+		return a;
+	}
+
+	/**
+	 * Gets the fastest available dot product kernel.
+	 */
+	private static DotKernel kernel(){
+		if(Boolean.parseBoolean(System.getProperty("jguii.simd", "true"))
+				&& ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()){
+			try{
+				return (DotKernel)Class.forName("com.joc.jguii.locate.VectorDotKernel").getDeclaredConstructor().newInstance();
+			}catch(ReflectiveOperationException | LinkageError e){
+				// fall back to plain Java
+			}
+		}
+		return new ScalarDotKernel();
+	}
+}
@@ -0,0 +1,32 @@
+package com.joc.jguii.locate;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD {@link DotKernel} using the incubating Vector API.
+ * <p>
+ * Only loaded, by reflection, when the JVM was started with
+ * <code>--add-modules jdk.incubator.vector</code>.
+ * </p>
+ */
+class VectorDotKernel implements DotKernel {
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+	@Override
+	public float dot(float a[], int aOff, float b[], int bOff, int len){
+		FloatVector acc = FloatVector.zero(SPECIES);
+		int i = 0;
+		int bound = SPECIES.loopBound(len);
+		for(; i < bound; i += SPECIES.length()){
+			FloatVector va = FloatVector.fromArray(SPECIES, a, aOff + i);
+			FloatVector vb = FloatVector.fromArray(SPECIES, b, bOff + i);
+			acc = va.fma(vb, acc);
+		}
+		float sum = acc.reduceLanes(VectorOperators.ADD);
+		for(; i < len; i++)
+			sum += a[aOff + i] * b[bOff + i];
+		return sum;
+	}
+}
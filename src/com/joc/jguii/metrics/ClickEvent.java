@@ -0,0 +1,29 @@
+package com.joc.jguii.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for clicking a mouse button.
+ */
+@Name("com.joc.jguii.Click")
+@Label("Click")
+@Description("Moving the mouse and clicking a button")
+public class ClickEvent extends OperationEvent {
+	/**
+	 * Absolute x coordinate of the click.
+	 */
+	@Label("X")
+	public int x;
+	/**
+	 * Absolute y coordinate of the click.
+	 */
+	@Label("Y")
+	public int y;
+	/**
+	 * Button mask of the button clicked.
+	 */
+	@Label("Button")
+	public int button;
+}
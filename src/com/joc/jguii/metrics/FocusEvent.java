@@ -0,0 +1,14 @@
+package com.joc.jguii.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for focusing an Application.
+ */
+@Name("com.joc.jguii.Focus")
+@Label("Focus")
+@Description("Focusing and raising an Application")
+public class FocusEvent extends OperationEvent {
+}
@@ -0,0 +1,188 @@
+package com.joc.jguii.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds.
+ * <p>
+ * Values are counted in log-linear buckets: every power of two is split into
+ * 32 equally sized buckets, so any recorded value is reported within about 3%
+ * of its true value, from 1ns up to {@link Long#MAX_VALUE}. All buckets are
+ * allocated up front and {@link #record(long)} does not allocate.
+ * </p>
+ * <p>
+ * Latencies of one operation mostly land in a handful of buckets, so threads
+ * recording at the same time would keep incrementing the same counter. Like
+ * {@link LongAdder}, the buckets are split into {@link #STRIPES} stripes that
+ * threads are spread over by id, and the stripes are summed when read.
+ * </p>
+ */
+public class LatencyHistogram {
+	/**
+	 * Number of bits of each value kept below its highest set bit.
+	 */
+	private static final int SUB_BITS = 5;
+	/**
+	 * Number of buckets per power of two.
+	 */
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+	/**
+	 * Total number of buckets, enough for any positive long.
+	 */
+	private static final int BUCKETS = (63 - SUB_BITS) * SUB_COUNT + 2 * SUB_COUNT;
+	/**
+	 * Number of copies of the buckets, a power of two no larger than the number of processors, up to 8.
+	 */
+	static final int STRIPES = Math.min(8, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+
+	/**
+	 * Counts of each bucket, split into stripes.
+	 */
+	private final AtomicLongArray counts[] = new AtomicLongArray[STRIPES];
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Creates an empty histogram.
+	 */
+	public LatencyHistogram(){
+		for(int i = 0; i < STRIPES; i++)
+			counts[i] = new AtomicLongArray(BUCKETS);
+	}
+
+	/**
+	 * Records a single value.
+	 * @param nanos The latency to record, negative values are counted as 0.
+	 */
+	public void record(long nanos){
+		if(nanos < 0)
+			nanos = 0;
+		counts[stripe()].incrementAndGet(index(nanos));
+		count.increment();
+		total.add(nanos);
+		max.accumulate(nanos);
+	}
+
+	/**
+	 * Gets the number of values recorded.
+	 * @return The number of values recorded.
+	 */
+	public long getCount(){
+		return count.sum();
+	}
+
+	/**
+	 * Gets the sum of all values recorded.
+	 * @return The sum of all values in nanoseconds.
+	 */
+	public long getTotal(){
+		return total.sum();
+	}
+
+	/**
+	 * Gets the largest value recorded.
+	 * @return The largest value in nanoseconds, or 0 if none have been recorded.
+	 */
+	public long getMax(){
+		return max.get();
+	}
+
+	/**
+	 * Gets the mean of all values recorded.
+	 * @return The mean in nanoseconds, or 0 if none have been recorded.
+	 */
+	public double getMean(){
+		long n = count.sum();
+		return n == 0 ? 0 : (double)total.sum() / n;
+	}
+
+	/**
+	 * Gets the value at the given percentile.
+	 * <p>
+	 * Returns the highest value that falls in the same bucket as the value
+	 * at <code>percentile</code>, capped at {@link #getMax()}.
+	 * </p>
+	 * @param percentile The percentile, between 0 and 100.
+	 * @return The value at <code>percentile</code> in nanoseconds, or 0 if none have been recorded.
+	 */
+	public long getPercentile(double percentile){
+		long n = 0;
+		for(int i = 0; i < BUCKETS; i++)
+			n += bucket(i);
+		if(n == 0)
+			return 0;
+		long target = Math.max(1, (long)Math.ceil(percentile / 100.0 * n));
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++){
+			seen += bucket(i);
+			if(seen >= target)
+				return Math.min(highest(i), max.get());
+		}
+		return max.get();
+	}
+
+	/**
+	 * Clears all recorded values.
+	 * <p>
+	 * Values recorded concurrently with a reset may be partly kept.
+	 * </p>
+	 */
+	public void reset(){
+		for(AtomicLongArray stripe : counts)
+			for(int i = 0; i < BUCKETS; i++)
+				stripe.set(i, 0);
+		count.reset();
+		total.reset();
+		max.reset();
+	}
+
+	/**
+	 * Gets the number of values in bucket <code>index</code>, summed over all stripes.
+	 * @param index The index of the bucket.
+	 * @return The number of values in the bucket.
+	 */
+	private long bucket(int index){
+		long n = 0;
+		for(AtomicLongArray stripe : counts)
+			n += stripe.get(index);
+		return n;
+	}
+
+	/**
+	 * Gets the stripe the current thread records into.
+	 * @return The index of the stripe.
+	 */
+	private static int stripe(){
+		long id = Thread.currentThread().getId();
+		// spread consecutive ids, which are common, over all stripes
+		return (int)((id * 0x9E3779B97F4A7C15L) >>> 32) & (STRIPES - 1);
+	}
+
+	/**
+	 * Gets the bucket that <code>value</code> is counted in.
+	 * @param value A value that is not negative.
+	 * @return The index of the bucket.
+	 */
+	static int index(long value){
+		if(value < SUB_COUNT)
+			return (int)value;
+		int exp = 63 - Long.numberOfLeadingZeros(value);
+		return (exp - SUB_BITS) * SUB_COUNT + (int)(value >>> (exp - SUB_BITS));
+	}
+
+	/**
+	 * Gets the highest value that is counted in bucket <code>index</code>.
+	 * @param index The index of the bucket.
+	 * @return The highest value in the bucket.
+	 */
+	static long highest(int index){
+		if(index < SUB_COUNT)
+			return index;
+		int shift = index / SUB_COUNT - 1;
+		long lowest = (long)(index % SUB_COUNT + SUB_COUNT) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
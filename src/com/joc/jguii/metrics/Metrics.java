@@ -0,0 +1,131 @@
+package com.joc.jguii.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Records the latency of each {@link Operation}.
+ * <p>
+ * Disabled unless the system property <code>jguii.metrics</code> is
+ * <code>true</code>. When disabled, {@link #start()} and {@link #record(Operation, long)}
+ * do nothing and are removed by the JIT. When enabled, every operation is
+ * counted in a {@link LatencyHistogram} without allocating, and the statistics
+ * are registered over JMX as {@link OperationStatsMXBean}s. The input rate 
+ * chosen for each Application is registered as a {@link PacingStatsMXBean}.
+ * </p>
+ * <p>
+ * Usage:
+ * </p>
+ * <pre>
+ * long start = Metrics.start();
+ * doOperation();
+ * Metrics.record(Operation.FOCUS, start);
+ * </pre>
+ */
+public final class Metrics {
+	/**
+	 * True if latencies are being recorded.
+	 */
+	public static final boolean ENABLED = Boolean.getBoolean("jguii.metrics");
+	/**
+	 * Statistics for every {@link Operation}, indexed by ordinal.
+	 */
+	private static final OperationStats stats[] = new OperationStats[Operation.values().length];
+
+	static{
+		for(Operation op : Operation.values())
+			stats[op.ordinal()] = new OperationStats(op);
+		if(ENABLED)
+			register();
+	}
+
+	private Metrics(){
+	}
+
+	/**
+	 * Gets the start time of an operation.
+	 * @return The current value of {@link System#nanoTime()}, or 0 if metrics are disabled.
+	 */
+	public static long start(){
+		return ENABLED ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Records an operation that began at <code>start</code> and has just finished.
+	 * @param op The operation.
+	 * @param start The value returned by {@link #start()} when the operation began.
+	 */
+	public static void record(Operation op, long start){
+		if(ENABLED)
+			stats[op.ordinal()].getHistogram().record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Gets the statistics for an operation.
+	 * @param op The operation.
+	 * @return The statistics for <code>op</code>.
+	 */
+	public static OperationStats getStats(Operation op){
+		return stats[op.ordinal()];
+	}
+
+	/**
+	 * Registers the input rate chosen for an Application, replacing any registered under the same name.
+	 * Does nothing if metrics are disabled.
+	 * @param app Name of the Application.
+	 * @param pacing The Application's input rate.
+	 */
+	public static void register(String app, PacingStatsMXBean pacing){
+		if(!ENABLED)
+			return;
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try{
+			ObjectName name = pacingName(app);
+			if(server.isRegistered(name))
+				server.unregisterMBean(name);
+			server.registerMBean(pacing, name);
+		}catch(JMException e){
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Unregisters the input rate of an Application.
+	 * @param app Name of the Application.
+	 */
+	public static void unregister(String app){
+		if(!ENABLED)
+			return;
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try{
+			ObjectName name = pacingName(app);
+			if(server.isRegistered(name))
+				server.unregisterMBean(name);
+		}catch(JMException e){
+			e.printStackTrace();
+		}
+	}
+
+	private static ObjectName pacingName(String app) throws JMException{
+		return new ObjectName("com.joc.jguii:type=Pacing,name=" + ObjectName.quote(app));
+	}
+
+	/**
+	 * Registers the statistics for every operation with the platform MBean server.
+	 */
+	private static void register(){
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		for(OperationStats s : stats){
+			try{
+				ObjectName name = new ObjectName("com.joc.jguii:type=Operation,name=" + s.getOperation().getLabel());
+				if(!server.isRegistered(name))
+					server.registerMBean(s, name);
+			}catch(JMException e){
+				e.printStackTrace();
+			}
+		}
+	}
+}
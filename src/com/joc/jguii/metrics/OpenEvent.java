@@ -0,0 +1,14 @@
+package com.joc.jguii.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for opening an Application.
+ */
+@Name("com.joc.jguii.Open")
+@Label("Open")
+@Description("Opening an Application, launching it if needed")
+public class OpenEvent extends OperationEvent {
+}
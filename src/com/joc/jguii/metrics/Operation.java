@@ -0,0 +1,60 @@
+package com.joc.jguii.metrics;
+
+/**
+ * The operations that latency is recorded for.
+ */
+public enum Operation {
+	/**
+	 * {@link com.joc.jguii.ApplicationHandler#open(int)}, including launching the Application if needed.
+	 */
+	OPEN("open"),
+	/**
+	 * Focusing and raising an Application's window.
+	 */
+	FOCUS("focus"),
+	/**
+	 * A single native window search.
+	 */
+	WINDOW_SEARCH("windowSearch"),
+	/**
+	 * A single native lookup of the focused window.
+	 */
+	GET_WINDOW_FOCUS("getWindowFocus"),
+	/**
+	 * Waiting for the window of a newly started Application to appear.
+	 */
+	LAUNCH("launch"),
+	/**
+	 * Typing a string.
+	 */
+	TYPE("type"),
+	/**
+	 * Moving the mouse and clicking a button.
+	 */
+	CLICK("click"),
+	/**
+	 * Pressing and releasing a single key.
+	 */
+	KEY("key"),
+	/**
+	 * Pinging an Application to measure how far behind its input it is.
+	 */
+	PING("ping");
+
+	/**
+	 * Name used for this operation in JMX.
+	 */
+	private final String label;
+
+	private Operation(String label){
+		this.label = label;
+	}
+
+	/**
+	 * Gets the name used for this operation in JMX.
+	 * @return The name of this operation.
+	 */
+	public String getLabel(){
+		return label;
+	}
+}
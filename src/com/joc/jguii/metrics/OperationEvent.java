@@ -0,0 +1,41 @@
+package com.joc.jguii.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base class of the JFR events for JGUII operations.
+ * <p>
+ * Events are created and begun before the operation and finished with
+ * {@link #commit(String, int)}. When no recording has the event enabled,
+ * the JIT removes the event entirely.
+ * </p>
+ */
+@Category("JGUII")
+public abstract class OperationEvent extends Event {
+	/**
+	 * Name of the Application the operation was performed on.
+	 */
+	@Label("Application")
+	String appName;
+	/**
+	 * Window id of the Application the operation was performed on.
+	 */
+	@Label("Window Id")
+	int windowId;
+
+	/**
+	 * Ends the event and commits it if it is enabled and over its threshold.
+	 * @param appName Name of the Application, may be null if not known.
+	 * @param windowId Window id of the Application, or -1 if not known.
+	 */
+	public void commit(String appName, int windowId){
+		end();
+		if(shouldCommit()){
+			this.appName = appName;
+			this.windowId = windowId;
+			commit();
+		}
+	}
+}
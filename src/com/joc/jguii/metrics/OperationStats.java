@@ -0,0 +1,80 @@
+package com.joc.jguii.metrics;
+
+/**
+ * Latency statistics for one {@link Operation}, backed by a {@link LatencyHistogram}.
+ */
+public class OperationStats implements OperationStatsMXBean {
+	/**
+	 * The operation these statistics are for.
+	 */
+	private final Operation operation;
+	/**
+	 * Every latency recorded for {@link #operation}.
+	 */
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	OperationStats(Operation operation){
+		this.operation = operation;
+	}
+
+	/**
+	 * Gets the operation these statistics are for.
+	 * @return The operation.
+	 */
+	public Operation getOperation(){
+		return operation;
+	}
+
+	/**
+	 * Gets the histogram backing these statistics.
+	 * @return The histogram of latencies.
+	 */
+	public LatencyHistogram getHistogram(){
+		return histogram;
+	}
+
+	@Override
+	public long getCount(){
+		return histogram.getCount();
+	}
+
+	@Override
+	public long getTotalNanos(){
+		return histogram.getTotal();
+	}
+
+	@Override
+	public double getMeanNanos(){
+		return histogram.getMean();
+	}
+
+	@Override
+	public long getP50Nanos(){
+		return histogram.getPercentile(50);
+	}
+
+	@Override
+	public long getP90Nanos(){
+		return histogram.getPercentile(90);
+	}
+
+	@Override
+	public long getP99Nanos(){
+		return histogram.getPercentile(99);
+	}
+
+	@Override
+	public long getP999Nanos(){
+		return histogram.getPercentile(99.9);
+	}
+
+	@Override
+	public long getMaxNanos(){
+		return histogram.getMax();
+	}
+
+	@Override
+	public void reset(){
+		histogram.reset();
+	}
+}
@@ -0,0 +1,48 @@
+package com.joc.jguii.metrics;
+
+/**
+ * Latency statistics for one {@link Operation}, exposed over JMX.
+ * <p>
+ * Registered as <code>com.joc.jguii:type=Operation,name=&lt;operation&gt;</code>
+ * when metrics are enabled. All times are in nanoseconds.
+ * </p>
+ * @see Metrics
+ */
+public interface OperationStatsMXBean {
+	/**
+	 * @return The number of times the operation was performed.
+	 */
+	long getCount();
+	/**
+	 * @return The total time spent in the operation.
+	 */
+	long getTotalNanos();
+	/**
+	 * @return The mean time of the operation.
+	 */
+	double getMeanNanos();
+	/**
+	 * @return The median time of the operation.
+	 */
+	long getP50Nanos();
+	/**
+	 * @return The 90th percentile time of the operation.
+	 */
+	long getP90Nanos();
+	/**
+	 * @return The 99th percentile time of the operation.
+	 */
+	long getP99Nanos();
+	/**
+	 * @return The 99.9th percentile time of the operation.
+	 */
+	long getP999Nanos();
+	/**
+	 * @return The longest time of the operation.
+	 */
+	long getMaxNanos();
+	/**
+	 * Clears all statistics for the operation.
+	 */
+	void reset();
+}
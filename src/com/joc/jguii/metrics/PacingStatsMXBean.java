@@ -0,0 +1,49 @@
+package com.joc.jguii.metrics;
+
+/**
+ * The input rate chosen for one Application, exposed over JMX.
+ * <p>
+ * Registered as <code>com.joc.jguii:type=Pacing,name=&lt;application&gt;</code>
+ * when metrics are enabled. All times are in nanoseconds.
+ * </p>
+ * @see Metrics
+ * @see com.joc.jguii.Pacer
+ */
+public interface PacingStatsMXBean {
+	/**
+	 * @return The window id of the Application.
+	 */
+	int getWindowId();
+	/**
+	 * @return The input rate currently chosen, in events per second.
+	 */
+	double getRate();
+	/**
+	 * @return The shortest time currently left between input events.
+	 */
+	long getDelayNanos();
+	/**
+	 * @return The latency of the last ping, or -1 if it was not replied to in time.
+	 */
+	long getLatencyNanos();
+	/**
+	 * @return The lowest recent ping latency, taken as the latency of an Application that is keeping up.
+	 */
+	long getBaseLatencyNanos();
+	/**
+	 * @return The number of input events paced.
+	 */
+	long getEvents();
+	/**
+	 * @return The number of times the rate was raised.
+	 */
+	long getIncreases();
+	/**
+	 * @return The number of times the rate was cut because input was queueing up.
+	 */
+	long getDecreases();
+	/**
+	 * @return The number of pings that were not replied to in time.
+	 */
+	long getTimeouts();
+}
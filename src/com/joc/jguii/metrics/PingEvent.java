@@ -0,0 +1,26 @@
+package com.joc.jguii.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for pinging an Application while pacing its input.
+ */
+@Name("com.joc.jguii.Ping")
+@Label("Ping")
+@Description("Measuring how far behind its input an Application is and adjusting its input rate")
+public class PingEvent extends OperationEvent {
+	/**
+	 * Time until the Application replied, or -1 if it did not reply in time.
+	 */
+	@Label("Latency")
+	@Timespan(Timespan.NANOSECONDS)
+	public long latency;
+	/**
+	 * Input rate chosen after the ping, in events per second.
+	 */
+	@Label("Rate")
+	public double rate;
+}
@@ -0,0 +1,19 @@
+package com.joc.jguii.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for typing a string.
+ */
+@Name("com.joc.jguii.Type")
+@Label("Type")
+@Description("Typing a string with dummy key events")
+public class TypeEvent extends OperationEvent {
+	/**
+	 * Number of characters typed.
+	 */
+	@Label("Length")
+	public int length;
+}
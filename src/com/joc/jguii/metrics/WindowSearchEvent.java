@@ -0,0 +1,14 @@
+package com.joc.jguii.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for a native window search.
+ */
+@Name("com.joc.jguii.WindowSearch")
+@Label("Window Search")
+@Description("Native search for a window by title")
+public class WindowSearchEvent extends OperationEvent {
+}
@@ -0,0 +1,150 @@
+package com.joc.jguii.recorder;
+
+import java.awt.AWTException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import com.joc.jguii.backend.Backends;
+import com.joc.jguii.backend.InputBackend;
+
+/**
+ * The records in a {@link FlightRecorder} dump.
+ * <p>
+ * A dump is a header of a magic number, a version, and the wall clock and
+ * {@link System#nanoTime()} at the time of the dump, followed by the records
+ * oldest first. All values are big-endian.
+ * </p>
+ * <p>
+ * Can be run to print a dump, or replay its input with the default backend:
+ * </p>
+ * <pre>
+ * java com.joc.jguii.recorder.FlightLog &lt;dump&gt; [replay]
+ * </pre>
+ */
+public class FlightLog {
+	private final long wallTime;
+	private final long nanoTime;
+	private final List<FlightRecord> records;
+
+	private FlightLog(long wallTime, long nanoTime, List<FlightRecord> records){
+		this.wallTime = wallTime;
+		this.nanoTime = nanoTime;
+		this.records = Collections.unmodifiableList(records);
+	}
+
+	/**
+	 * Reads a dump.
+	 * @param file The dump file.
+	 * @return The records in the dump.
+	 * @throws IOException If the file could not be read or is not a dump.
+	 */
+	public static FlightLog read(Path file) throws IOException{
+		ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file));
+		if(buf.remaining() < FlightRecorder.HEADER_SIZE || buf.getInt() != FlightRecorder.MAGIC)
+			throw new IOException(file + " is not a flight recorder dump");
+		int version = buf.getInt();
+		if(version != FlightRecorder.VERSION)
+			throw new IOException("unsupported dump version " + version);
+		long wall = buf.getLong();
+		long nano = buf.getLong();
+		ArrayList<FlightRecord> records = new ArrayList<FlightRecord>(buf.remaining() / RingBuffer.DUMP_RECORD_SIZE);
+		while(buf.remaining() >= RingBuffer.DUMP_RECORD_SIZE){
+			long time = buf.getLong();
+			RecordType type = RecordType.valueOf(buf.getInt());
+			int window = buf.getInt();
+			int a = buf.getInt();
+			int b = buf.getInt();
+			if(type != null)
+				records.add(new FlightRecord(time, type, window, a, b));
+		}
+		return new FlightLog(wall, nano, records);
+	}
+
+	/**
+	 * Gets the records, oldest first.
+	 * @return The records in the dump.
+	 */
+	public List<FlightRecord> getRecords(){
+		return records;
+	}
+
+	/**
+	 * Converts the time of a record to wall clock time.
+	 * @param r A record from this log.
+	 * @return When the record was written, in milliseconds since the epoch.
+	 */
+	public long getWallTime(FlightRecord r){
+		return wallTime - (nanoTime - r.getTime()) / 1000000;
+	}
+
+	/**
+	 * Sends the recorded input again.
+	 * <p>
+	 * Only key and mouse records are replayed. Input always goes to the focused window,
+	 * so the same windows should be open and focused as when it was recorded.
+	 * </p>
+	 * @param input Backend to send the input with.
+	 * @param timed If true the gaps between records are kept, otherwise input is sent as fast as possible.
+	 * @throws InterruptedException If interrupted while waiting between records.
+	 */
+	public void replay(InputBackend input, boolean timed) throws InterruptedException{
+		long last = -1;
+		for(FlightRecord r : records){
+			if(!r.getType().isInput())
+				continue;
+			if(timed && last != -1 && r.getTime() > last){
+				long gap = r.getTime() - last;
+				Thread.sleep(gap / 1000000, (int)(gap % 1000000));
+			}
+			last = r.getTime();
+			switch(r.getType()){
+			case KEY_PRESS:
+				input.keyPress(r.getA());
+				break;
+			case KEY_RELEASE:
+				input.keyRelease(r.getA());
+				break;
+			case MOUSE_MOVE:
+				input.mouseMove(r.getA(), r.getB());
+				break;
+			case MOUSE_PRESS:
+				input.mousePress(r.getA());
+				break;
+			case MOUSE_RELEASE:
+				input.mouseRelease(r.getA());
+				break;
+			default:
+				break;
+			}
+		}
+		return;
+	}
+
+	/**
+	 * Prints a dump, and replays its input in real time if the second argument is <code>replay</code>.
+	 * @param args The dump file and optionally <code>replay</code>.
+	 * @throws IOException If the dump could not be read.
+	 * @throws AWTException If the input backend could not be created.
+	 * @throws InterruptedException If interrupted while replaying.
+	 */
+	public static void main(String[] args) throws IOException, AWTException, InterruptedException{
+		if(args.length < 1 || args.length > 2 || (args.length == 2 && !"replay".equals(args[1]))){
+			System.err.println("usage: FlightLog <dump> [replay]");
+			System.exit(2);
+		}
+		FlightLog log = read(Paths.get(args[0]));
+		SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss.SSS");
+		for(FlightRecord r : log.getRecords())
+			System.out.println(format.format(new Date(log.getWallTime(r))) + " " + r);
+		if(args.length == 2)
+			log.replay(Backends.getDefault().getInputBackend(), true);
+	}
+}
@@ -0,0 +1,73 @@
+package com.joc.jguii.recorder;
+
+/**
+ * A record read from a {@link FlightRecorder} dump.
+ * @see FlightLog
+ */
+public class FlightRecord {
+	private final long time;
+	private final RecordType type;
+	private final int window;
+	private final int a, b;
+
+	/**
+	 * @param time When the record was written, from {@link System#nanoTime()}.
+	 * @param type The kind of record.
+	 * @param window The window id, or -1 if not known.
+	 * @param a First argument.
+	 * @param b Second argument.
+	 */
+	public FlightRecord(long time, RecordType type, int window, int a, int b){
+		this.time = time;
+		this.type = type;
+		this.window = window;
+		this.a = a;
+		this.b = b;
+	}
+
+	/**
+	 * Gets when the record was written.
+	 * @return The value of {@link System#nanoTime()} in the recording JVM.
+	 * @see FlightLog#getWallTime(FlightRecord)
+	 */
+	public long getTime(){
+		return time;
+	}
+
+	/**
+	 * Gets the kind of record.
+	 * @return The type of this record.
+	 */
+	public RecordType getType(){
+		return type;
+	}
+
+	/**
+	 * Gets the window the operation was sent to.
+	 * @return The window id, or -1 if not known.
+	 */
+	public int getWindow(){
+		return window;
+	}
+
+	/**
+	 * Gets the first argument, the keycode, button mask or x coordinate.
+	 * @return The first argument.
+	 */
+	public int getA(){
+		return a;
+	}
+
+	/**
+	 * Gets the second argument, the y coordinate.
+	 * @return The second argument.
+	 */
+	public int getB(){
+		return b;
+	}
+
+	@Override
+	public String toString(){
+		return type + " window=0x" + Integer.toHexString(window) + " a=" + a + " b=" + b;
+	}
+}
@@ -0,0 +1,212 @@
+package com.joc.jguii.recorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Flow;
+
+import com.joc.jguii.backend.WindowBackend;
+import com.joc.jguii.backend.WindowEvent;
+
+/**
+ * Always-on record of the input JGUII generated and the windows it worked with.
+ * <p>
+ * Every key, mouse, open and focus operation is written to an off-heap
+ * {@link RingBuffer} that keeps the last <code>jguii.recorder.size</code>
+ * records (65536 by default, 2 MiB). Recording does not lock or allocate, so it
+ * is enabled unless the system property <code>jguii.recorder</code> is
+ * <code>false</code>.
+ * </p>
+ * <p>
+ * The ring is written to a file by {@link #dump(Path)}, or by
+ * {@link #dumpOnError(Throwable)} when an operation fails. Dumping when any
+ * thread dies from an uncaught exception is left to the host application to
+ * turn on, with {@link #installCrashHandler()} or by setting
+ * <code>jguii.recorder.crashHandler</code> to <code>true</code>. Dumps go to <code>jguii.recorder.file</code>, by
+ * default <code>jguii-&lt;pid&gt;.flight</code> in the temporary directory, and
+ * are read and replayed with {@link FlightLog}.
+ * </p>
+ */
+public final class FlightRecorder {
+	/**
+	 * True if records are being kept.
+	 */
+	public static final boolean ENABLED = !"false".equals(System.getProperty("jguii.recorder"));
+	/**
+	 * First int of a dump file, "JGFR".
+	 */
+	static final int MAGIC = 0x4A474652;
+	/**
+	 * Version of the dump format.
+	 */
+	static final int VERSION = 1;
+	/**
+	 * Size of the header of a dump file.
+	 */
+	static final int HEADER_SIZE = 24;
+
+	private static final RingBuffer ring = ENABLED ? new RingBuffer(Integer.getInteger("jguii.recorder.size", 65536)) : null;
+	/**
+	 * True once the crash handler has been installed.
+	 */
+	private static boolean crashHandler;
+
+	static{
+		if(Boolean.getBoolean("jguii.recorder.crashHandler"))
+			installCrashHandler();
+	}
+
+	private FlightRecorder(){
+	}
+
+	/**
+	 * Records an operation.
+	 * @param type The kind of operation.
+	 * @param window The window it was sent to, or -1 if not known.
+	 * @param a First argument, see {@link RecordType}.
+	 * @param b Second argument, see {@link RecordType}.
+	 */
+	public static void record(RecordType type, int window, int a, int b){
+		if(ENABLED)
+			ring.write(type.ordinal(), window, a, b);
+	}
+
+	/**
+	 * Gets the number of records written since the JVM started, including overwritten ones.
+	 * @return The number of records, or 0 if disabled.
+	 */
+	public static long getRecorded(){
+		return ENABLED ? ring.written() : 0;
+	}
+
+	/**
+	 * Gets the file dumps are written to by default.
+	 * @return The value of <code>jguii.recorder.file</code> or <code>jguii-&lt;pid&gt;.flight</code> in the temporary directory.
+	 */
+	public static Path getDefaultFile(){
+		String file = System.getProperty("jguii.recorder.file");
+		if(file != null)
+			return Paths.get(file);
+		return Paths.get(System.getProperty("java.io.tmpdir"), "jguii-" + ProcessHandle.current().pid() + ".flight");
+	}
+
+	/**
+	 * Writes the records kept to the default file.
+	 * @return The file written.
+	 * @throws IOException If the file could not be written.
+	 * @see #getDefaultFile()
+	 */
+	public static Path dump() throws IOException{
+		return dump(getDefaultFile());
+	}
+
+	/**
+	 * Writes the records kept to a file, replacing it.
+	 * <p>
+	 * Recording carries on while the dump is written; records overwritten
+	 * during the dump are left out.
+	 * </p>
+	 * @param file The file to write.
+	 * @return <code>file</code>
+	 * @throws IOException If the file could not be written.
+	 * @throws IllegalStateException If the recorder is disabled.
+	 */
+	public static Path dump(Path file) throws IOException{
+		if(!ENABLED)
+			throw new IllegalStateException("the flight recorder is disabled");
+		try(FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)){
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).putLong(System.nanoTime());
+			header.flip();
+			while(header.hasRemaining())
+				out.write(header);
+			ring.dump(out);
+		}
+		return file;
+	}
+
+	/**
+	 * Records an error and dumps to the default file, reporting where on standard error.
+	 * @param t The error, only used in the report.
+	 */
+	public static void dumpOnError(Throwable t){
+		if(!ENABLED)
+			return;
+		record(RecordType.ERROR, -1, 0, 0);
+		try{
+			System.err.println("jguii: " + t + ", flight recorder dumped to " + dump());
+		}catch(IOException e){
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Records the changes to windows published by a backend.
+	 * <p>
+	 * Only subscribes if <code>jguii.recorder.windows</code> is <code>true</code>
+	 * and the backend publishes window events, since on X11 this opens another
+	 * connection and starts a reader thread.
+	 * </p>
+	 * @param windows The backend to watch.
+	 * @see WindowBackend#getWindowEvents()
+	 */
+	public static void watch(WindowBackend windows){
+		if(!ENABLED || !Boolean.getBoolean("jguii.recorder.windows"))
+			return;
+		try{
+			windows.getWindowEvents().subscribe(new Flow.Subscriber<WindowEvent>(){
+				@Override
+				public void onSubscribe(Flow.Subscription subscription){
+					subscription.request(Long.MAX_VALUE);
+				}
+
+				@Override
+				public void onNext(WindowEvent e){
+					record(RecordType.valueOf(RecordType.WINDOW_MAPPED.ordinal() + e.getType().ordinal()),
+							e.getWindow(), e.getX(), e.getY());
+				}
+
+				@Override
+				public void onError(Throwable throwable){
+				}
+
+				@Override
+				public void onComplete(){
+				}
+			});
+		}catch(UnsupportedOperationException e){
+		}
+	}
+
+	/**
+	 * Dumps when any thread dies from an uncaught exception.
+	 * <p>
+	 * Wraps the current default uncaught exception handler, which still gets
+	 * every exception after the dump. Does nothing if the recorder is disabled
+	 * or the handler is already installed.
+	 * </p>
+	 * @see Thread#setDefaultUncaughtExceptionHandler(Thread.UncaughtExceptionHandler)
+	 */
+	public static synchronized void installCrashHandler(){
+		if(!ENABLED || crashHandler)
+			return;
+		crashHandler = true;
+		final Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+		Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler(){
+			@Override
+			public void uncaughtException(Thread thread, Throwable t){
+				dumpOnError(t);
+				if(previous != null)
+					previous.uncaughtException(thread, t);
+				else{
+					System.err.print("Exception in thread \"" + thread.getName() + "\" ");
+					t.printStackTrace();
+				}
+			}
+		});
+	}
+}
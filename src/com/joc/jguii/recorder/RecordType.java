@@ -0,0 +1,90 @@
+package com.joc.jguii.recorder;
+
+/**
+ * The kinds of record kept by the {@link FlightRecorder}.
+ * <p>
+ * Records are stored by ordinal, so new types must only be added at the end.
+ * </p>
+ */
+public enum RecordType {
+	/**
+	 * A key was pressed, <code>a</code> is the keycode.
+	 */
+	KEY_PRESS(true),
+	/**
+	 * A key was released, <code>a</code> is the keycode.
+	 */
+	KEY_RELEASE(true),
+	/**
+	 * The mouse was moved to <code>(a, b)</code>.
+	 */
+	MOUSE_MOVE(true),
+	/**
+	 * Mouse buttons were pressed, <code>a</code> is the button mask.
+	 */
+	MOUSE_PRESS(true),
+	/**
+	 * Mouse buttons were released, <code>a</code> is the button mask.
+	 */
+	MOUSE_RELEASE(true),
+	/**
+	 * An Application was opened.
+	 */
+	OPEN(false),
+	/**
+	 * An Application's window was focused.
+	 */
+	FOCUS(false),
+	/**
+	 * A window was mapped.
+	 */
+	WINDOW_MAPPED(false),
+	/**
+	 * A window was unmapped.
+	 */
+	WINDOW_UNMAPPED(false),
+	/**
+	 * A window's title changed.
+	 */
+	TITLE_CHANGED(false),
+	/**
+	 * A window became the active window.
+	 */
+	ACTIVE_CHANGED(false),
+	/**
+	 * A window was moved or resized, <code>(a, b)</code> is its new position.
+	 */
+	GEOMETRY_CHANGED(false),
+	/**
+	 * An operation failed, logged just before the recorder was dumped.
+	 */
+	ERROR(false);
+
+	private static final RecordType types[] = values();
+
+	/**
+	 * True if this record is input that can be replayed.
+	 */
+	private final boolean input;
+
+	private RecordType(boolean input){
+		this.input = input;
+	}
+
+	/**
+	 * Checks if records of this type can be replayed through an {@link com.joc.jguii.backend.InputBackend}.
+	 * @return True for generated input.
+	 */
+	public boolean isInput(){
+		return input;
+	}
+
+	/**
+	 * Gets the type with the given ordinal.
+	 * @param ordinal The ordinal stored in a record.
+	 * @return The type, or null if the ordinal is out of range.
+	 */
+	public static RecordType valueOf(int ordinal){
+		return ordinal >= 0 && ordinal < types.length ? types[ordinal] : null;
+	}
+}
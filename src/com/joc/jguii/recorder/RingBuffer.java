@@ -0,0 +1,162 @@
+package com.joc.jguii.recorder;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Fixed size ring of binary records in off-heap memory.
+ * <p>
+ * Each record is {@value #RECORD_SIZE} bytes: a sequence stamp, a
+ * {@link System#nanoTime()} timestamp, a {@link RecordType} ordinal, a window
+ * id and two ints whose meaning depends on the type. Writers claim a sequence
+ * number with a single atomic increment, then take the slot by swapping its stamp
+ * for a busy mark holding that number and publish the record by writing the
+ * sequence number, which includes the lap, as the stamp last. Writing never
+ * locks, waits or allocates. Readers check the stamp before and after reading
+ * a record and skip records that were overwritten while being read.
+ * </p>
+ * <p>
+ * When the ring is full the oldest records are overwritten. Two writers a
+ * whole lap apart can land on the same slot when one of them is descheduled.
+ * The one that finds the slot busy, or already holding a later record, drops
+ * its record instead of writing over the other. So records can be lost but
+ * are never torn, and a stamp always matches the whole record under it.
+ * </p>
+ */
+final class RingBuffer {
+	/**
+	 * Size of a record in bytes.
+	 */
+	static final int RECORD_SIZE = 32;
+	/**
+	 * Size of a record in a dump, without the stamp.
+	 */
+	static final int DUMP_RECORD_SIZE = 24;
+
+	/**
+	 * Stamp of a slot that has never been written. Stamps below it mark a slot being written, see {@link #busy(long)}.
+	 */
+	private static final long EMPTY = -1;
+
+	private static final VarHandle STAMP = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+	private static final VarHandle NEXT;
+
+	static{
+		try{
+			NEXT = MethodHandles.lookup().findVarHandle(RingBuffer.class, "next", long.class);
+		}catch(ReflectiveOperationException e){
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final ByteBuffer records;
+	private final int mask;
+	/**
+	 * Sequence number of the next record to be written.
+	 */
+	@SuppressWarnings("unused")
+	private volatile long next;
+
+	/**
+	 * @param capacity Number of records kept, rounded up to a power of two.
+	 */
+	RingBuffer(int capacity){
+		if(capacity < 1 || capacity > (1 << 24))
+			throw new IllegalArgumentException("capacity must be between 1 and 2^24");
+		int size = Integer.highestOneBit(capacity);
+		if(size < capacity)
+			size <<= 1;
+		mask = size - 1;
+		records = ByteBuffer.allocateDirect(size * RECORD_SIZE).order(ByteOrder.nativeOrder());
+		for(int i = 0; i < size; i++)
+			records.putLong(i * RECORD_SIZE, EMPTY);
+	}
+
+	/**
+	 * Gets the stamp of a slot while record <code>seq</code> is being written to it.
+	 */
+	private static long busy(long seq){
+		return -2 - seq;
+	}
+
+	/**
+	 * Writes a record.
+	 * @param type Ordinal of the {@link RecordType}.
+	 * @param window Window id.
+	 * @param a First argument.
+	 * @param b Second argument.
+	 */
+	void write(int type, int window, int a, int b){
+		long seq = (long)NEXT.getAndAdd(this, 1L);
+		int off = (int)(seq & mask) * RECORD_SIZE;
+		long stamp = (long)STAMP.getVolatile(records, off);
+		// a writer from another lap is still here, or a later lap has been: lose this record rather than tear one
+		if(stamp < EMPTY || stamp > seq || !STAMP.compareAndSet(records, off, stamp, busy(seq)))
+			return;
+		records.putLong(off + 8, System.nanoTime());
+		records.putInt(off + 16, type);
+		records.putInt(off + 20, window);
+		records.putInt(off + 24, a);
+		records.putInt(off + 28, b);
+		STAMP.setRelease(records, off, seq);
+	}
+
+	/**
+	 * Gets the number of records kept.
+	 * @return The capacity of the ring.
+	 */
+	int capacity(){
+		return mask + 1;
+	}
+
+	/**
+	 * Gets the number of records ever written.
+	 * @return The sequence number of the next record.
+	 */
+	long written(){
+		return (long)NEXT.getVolatile(this);
+	}
+
+	/**
+	 * Writes every complete record still in the ring, oldest first, in big-endian dump format.
+	 * @param out Channel to write to.
+	 * @return The number of records written.
+	 * @throws IOException If writing failed.
+	 */
+	int dump(WritableByteChannel out) throws IOException{
+		ByteBuffer chunk = ByteBuffer.allocate(1024 * DUMP_RECORD_SIZE);
+		long end = written();
+		long seq = Math.max(0, end - capacity());
+		int count = 0;
+		for(; seq < end; seq++){
+			int off = (int)(seq & mask) * RECORD_SIZE;
+			if((long)STAMP.getAcquire(records, off) != seq)
+				continue;
+			long time = records.getLong(off + 8);
+			int type = records.getInt(off + 16);
+			int window = records.getInt(off + 20);
+			int a = records.getInt(off + 24);
+			int b = records.getInt(off + 28);
+			VarHandle.loadLoadFence();
+			if((long)STAMP.getOpaque(records, off) != seq)
+				continue;
+			if(chunk.remaining() < DUMP_RECORD_SIZE)
+				flush(chunk, out);
+			chunk.putLong(time).putInt(type).putInt(window).putInt(a).putInt(b);
+			count++;
+		}
+		flush(chunk, out);
+		return count;
+	}
+
+	private static void flush(ByteBuffer chunk, WritableByteChannel out) throws IOException{
+		chunk.flip();
+		while(chunk.hasRemaining())
+			out.write(chunk);
+		chunk.clear();
+	}
+}
@@ -0,0 +1,162 @@
+package com.joc.jguii.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+/**
+ * One client of a {@link ControlServer}.
+ * <p>
+ * Holds the client's partly read frames, the requests decoded but not yet
+ * executed, and the replies not yet written. Only used by the server thread.
+ * </p>
+ */
+class Connection {
+	/**
+	 * A decoded request.
+	 */
+	static class Request {
+		final int id;
+		final byte op;
+		final ByteBuffer args;
+
+		Request(int id, byte op, ByteBuffer args){
+			this.id = id;
+			this.op = op;
+			this.args = args;
+		}
+	}
+
+	/**
+	 * Stop reading from a client with this many requests waiting.
+	 */
+	private static final int MAX_QUEUED = 1024;
+	/**
+	 * Stop reading from a client with this many bytes of replies waiting.
+	 */
+	private static final int MAX_PENDING_OUT = 256 * 1024;
+
+	final SocketChannel channel;
+	final SelectionKey key;
+	/**
+	 * Requests decoded but not yet executed, in the order they were sent.
+	 */
+	final ArrayDeque<Request> queue = new ArrayDeque<Request>();
+	/**
+	 * True while this connection is in the server's ready queue.
+	 */
+	boolean scheduled;
+	private final ByteBuffer in = ByteBuffer.allocate(Protocol.MAX_FRAME + 4);
+	private ByteBuffer out = ByteBuffer.allocate(4096);
+
+	Connection(SocketChannel channel, SelectionKey key){
+		this.channel = channel;
+		this.key = key;
+	}
+
+	/**
+	 * Reads what is available and decodes every complete frame into {@link #queue}.
+	 * @return False if the client closed the connection or sent an invalid frame.
+	 * @throws IOException If reading fails.
+	 */
+	boolean read() throws IOException{
+		if(channel.read(in) == -1)
+			return false;
+		in.flip();
+		try{
+			while(in.remaining() >= 4){
+				int len = in.getInt(in.position());
+				if(len < 5 || len > Protocol.MAX_FRAME)
+					return false;
+				if(in.remaining() < 4 + len)
+					break;
+				in.getInt();
+				int id = in.getInt();
+				byte op = in.get();
+				byte args[] = new byte[len - 5];
+				in.get(args);
+				queue.add(new Request(id, op, ByteBuffer.wrap(args)));
+			}
+		}finally{
+			in.compact();
+		}
+		return true;
+	}
+
+	/**
+	 * Appends a reply that carries no result.
+	 * @param id The request id.
+	 */
+	void replyOk(int id){
+		ensure(9);
+		out.putInt(5).putInt(id).put(Protocol.OK);
+	}
+
+	/**
+	 * Appends a reply that carries a boolean result.
+	 * @param id The request id.
+	 * @param result The result.
+	 */
+	void replyOk(int id, boolean result){
+		ensure(10);
+		out.putInt(6).putInt(id).put(Protocol.OK).put((byte)(result ? 1 : 0));
+	}
+
+	/**
+	 * Appends an error reply.
+	 * @param id The request id.
+	 * @param message Description of the error.
+	 */
+	void replyError(int id, String message){
+		ensure(9 + 2 + Protocol.MAX_STRING);
+		int start = out.position();
+		out.putInt(0).putInt(id).put(Protocol.ERROR);
+		Protocol.putString(out, message);
+		out.putInt(start, out.position() - start - 4);
+	}
+
+	/**
+	 * Writes as many waiting replies as the socket accepts.
+	 * @throws IOException If writing fails.
+	 */
+	void flush() throws IOException{
+		if(out.position() == 0)
+			return;
+		out.flip();
+		channel.write(out);
+		out.compact();
+	}
+
+	/**
+	 * Updates the operations the server waits for on this connection.
+	 * <p>
+	 * Waits for writes while replies are waiting, and stops reading while
+	 * too many requests or replies are waiting so one client cannot use
+	 * unbounded memory.
+	 * </p>
+	 */
+	void updateInterest(){
+		if(!key.isValid())
+			return;
+		int ops = 0;
+		if(queue.size() < MAX_QUEUED && out.position() < MAX_PENDING_OUT)
+			ops |= SelectionKey.OP_READ;
+		if(out.position() > 0)
+			ops |= SelectionKey.OP_WRITE;
+		key.interestOps(ops);
+	}
+
+	/**
+	 * Makes room for <code>n</code> more bytes in {@link #out}.
+	 */
+	private void ensure(int n){
+		if(out.remaining() >= n)
+			return;
+		ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + n));
+		out.flip();
+		bigger.put(out);
+		out = bigger;
+	}
+}
@@ -0,0 +1,524 @@
+package com.joc.jguii.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.joc.jguii.ApplicationHandler;
+import com.joc.jguii.recorder.FlightRecorder;
+
+/**
+ * Serves an {@link ApplicationHandler} to other processes over a Unix domain socket.
+ * <p>
+ * Lets scripts in any language drive JGUII without starting a JVM, parsing the
+ * config file and loading the native library for every task. The protocol is
+ * described in {@link Protocol}.
+ * </p>
+ * <p>
+ * The server thread accepts clients, reads their requests and writes the
+ * replies. Requests that use the handler, which can block for as long as an
+ * Application takes to start, are executed one at a time by a worker thread,
+ * since the handler and the X input it generates are not concurrent anyway.
+ * Requests that don't need the handler are answered straight away, so the
+ * server stays responsive while the worker is busy. Clients may pipeline
+ * requests. Clients with waiting requests are served round robin, one request
+ * each per round, with at most one request per client executing at a time. So
+ * a client with a long pipeline cannot starve the others.
+ * </p>
+ * <p>
+ * A request that is malformed or not valid in the handler's current state is
+ * answered with an error. Other failures are internal faults, which are also
+ * written to the {@link FlightRecorder}.
+ * </p>
+ * <p>
+ * Anyone who can connect can drive the desktop, so the socket file is only
+ * accessible to the user running the server.
+ * </p>
+ * <p>
+ * Run as a daemon with:
+ * </p>
+ * <pre>
+ * java com.joc.jguii.server.ControlServer &lt;config&gt; &lt;socket path&gt;
+ * </pre>
+ */
+public class ControlServer implements Closeable, Runnable {
+	/**
+	 * The handler that executes every request.
+	 */
+	private final ApplicationHandler handler;
+	/**
+	 * Path of the socket file.
+	 */
+	private final Path path;
+	/**
+	 * Identity of the socket file, so {@link #close()} only deletes the file this server created.
+	 */
+	private final Object fileKey;
+	private final Selector selector;
+	private final ServerSocketChannel server;
+	/**
+	 * Connections with requests waiting, in the order they will be served.
+	 */
+	private final ArrayDeque<Connection> ready = new ArrayDeque<Connection>();
+	/**
+	 * Replies produced by the worker, written to their connections by the server thread.
+	 */
+	private final ConcurrentLinkedQueue<Reply> completed = new ConcurrentLinkedQueue<Reply>();
+	/**
+	 * Executes the requests that use the handler, one at a time.
+	 */
+	private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "jguii-control-worker");
+		t.setDaemon(true);
+		return t;
+	});
+	private volatile boolean running = true;
+	/**
+	 * The thread running {@link #run()}, or null if it has not started.
+	 */
+	private Thread loop;
+
+	/**
+	 * The reply to a request, produced by whichever thread executed it.
+	 */
+	private static final class Reply {
+		final Connection connection;
+		final int id;
+		/**
+		 * The error message, or null if the request succeeded.
+		 */
+		final String error;
+		/**
+		 * The result of a query, or null if the request returns none.
+		 */
+		final Boolean result;
+
+		Reply(Connection connection, int id, String error, Boolean result){
+			this.connection = connection;
+			this.id = id;
+			this.error = error;
+			this.result = result;
+		}
+
+		/**
+		 * Appends this reply to its connection. Only called by the server thread.
+		 */
+		void write(){
+			if(error != null)
+				connection.replyError(id, error);
+			else if(result != null)
+				connection.replyOk(id, result);
+			else
+				connection.replyOk(id);
+		}
+	}
+
+	/**
+	 * Binds a new server to <code>path</code>.
+	 * <p>
+	 * A socket file already at <code>path</code> is replaced if no server is listening 
+	 * on it. The socket is bound in a private directory, made accessible only to its 
+	 * owner and then moved to <code>path</code>, so no other user can connect in between.
+	 * </p>
+	 * @param handler The handler that executes every request.
+	 * @param path Path of the socket file.
+	 * @throws FileAlreadyExistsException If <code>path</code> is a file other than a socket, or a server is listening on it.
+	 * @throws IOException If the socket could not be bound.
+	 */
+	public ControlServer(ApplicationHandler handler, Path path) throws IOException{
+		this.handler = handler;
+		this.path = path;
+		removeStale(path);
+		Path dir = Files.createTempDirectory(path.toAbsolutePath().getParent(), ".jguii",
+				PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+		Path bound = dir.resolve("s");
+		server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		try{
+			server.bind(UnixDomainSocketAddress.of(bound));
+			Files.setPosixFilePermissions(bound, PosixFilePermissions.fromString("rw-------"));
+			Files.move(bound, path);
+			fileKey = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).fileKey();
+			selector = Selector.open();
+			server.configureBlocking(false);
+			server.register(selector, SelectionKey.OP_ACCEPT);
+		}catch(IOException | RuntimeException e){
+			server.close();
+			Files.deleteIfExists(bound);
+			throw e;
+		}finally{
+			Files.deleteIfExists(dir);
+		}
+	}
+
+	/**
+	 * Deletes a socket file left behind by a server that is no longer running.
+	 * @param path Path of the socket file.
+	 * @throws FileAlreadyExistsException If <code>path</code> is a file other than a socket, or a server is listening on it.
+	 */
+	private static void removeStale(Path path) throws IOException{
+		BasicFileAttributes attrs;
+		try{
+			attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+		}catch(NoSuchFileException e){
+			return;
+		}
+		if(!attrs.isOther())
+			throw new FileAlreadyExistsException(path.toString(), null, "not a socket");
+		SocketChannel probe;
+		try{
+			probe = SocketChannel.open(UnixDomainSocketAddress.of(path));
+		}catch(IOException e){
+			// nobody is listening, so it is stale
+			Files.delete(path);
+			return;
+		}
+		probe.close();
+		throw new FileAlreadyExistsException(path.toString(), null, "a server is already listening");
+	}
+
+	/**
+	 * Serves clients until {@link #close()} is called, then disconnects them.
+	 */
+	@Override
+	public void run(){
+		synchronized(this){
+			if(!running || loop != null)
+				return;
+			loop = Thread.currentThread();
+		}
+		try{
+			while(running){
+				if(ready.isEmpty() && completed.isEmpty())
+					selector.select();
+				else
+					selector.selectNow();
+				complete();
+				poll();
+				serveRound();
+			}
+		}catch(IOException e){
+			if(running)
+				e.printStackTrace();
+		}finally{
+			try{
+				shutdown();
+			}catch(IOException e){
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Stops the server, disconnects all clients and deletes the socket file if it is still this server's.
+	 * <p>
+	 * The server thread disconnects the clients itself; this waits for it to finish.
+	 * A request already executing is left to finish, but its reply is not sent.
+	 * </p>
+	 */
+	@Override
+	public void close() throws IOException{
+		Thread t;
+		synchronized(this){
+			running = false;
+			t = loop;
+		}
+		if(t == null){
+			shutdown();
+			return;
+		}
+		selector.wakeup();
+		if(t != Thread.currentThread()){
+			try{
+				t.join();
+			}catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Closes every channel and the selector and deletes the socket file.
+	 * Only called by the server thread, or by {@link #close()} if it never started.
+	 */
+	private synchronized void shutdown() throws IOException{
+		if(!selector.isOpen())
+			return;
+		worker.shutdown();
+		for(SelectionKey key : selector.keys()){
+			try{
+				key.channel().close();
+			}catch(IOException e){
+			}
+		}
+		selector.close();
+		deleteSocketFile();
+	}
+
+	/**
+	 * Deletes the socket file, unless it has been replaced by something else since the server started.
+	 */
+	private void deleteSocketFile() throws IOException{
+		try{
+			if(fileKey != null && !fileKey.equals(Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).fileKey()))
+				return;
+		}catch(NoSuchFileException e){
+			return;
+		}
+		Files.deleteIfExists(path);
+	}
+
+	/**
+	 * Handles the keys selected by the last select.
+	 */
+	private void poll() throws IOException{
+		Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+		while(it.hasNext()){
+			SelectionKey key = it.next();
+			it.remove();
+			if(!key.isValid())
+				continue;
+			if(key.isAcceptable()){
+				accept();
+				continue;
+			}
+			Connection c = (Connection)key.attachment();
+			try{
+				if(key.isWritable())
+					c.flush();
+				if(key.isReadable()){
+					if(!c.read()){
+						disconnect(c);
+						continue;
+					}
+					if(!c.scheduled && !c.queue.isEmpty()){
+						c.scheduled = true;
+						ready.add(c);
+					}
+				}
+				c.updateInterest();
+			}catch(IOException e){
+				disconnect(c);
+			}
+		}
+	}
+
+	private void accept() throws IOException{
+		SocketChannel channel;
+		while((channel = server.accept()) != null){
+			channel.configureBlocking(false);
+			SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+			key.attach(new Connection(channel, key));
+		}
+	}
+
+	private void disconnect(Connection c){
+		c.key.cancel();
+		try{
+			c.channel.close();
+		}catch(IOException e){
+		}
+	}
+
+	/**
+	 * Writes the replies the worker has produced and schedules their connections again.
+	 */
+	private void complete(){
+		Reply reply;
+		while((reply = completed.poll()) != null){
+			Connection c = reply.connection;
+			if(!c.key.isValid())
+				continue;
+			reply.write();
+			reschedule(c);
+		}
+	}
+
+	/**
+	 * Puts a connection whose last request has been answered back in the ready queue if it has more waiting.
+	 */
+	private void reschedule(Connection c){
+		if(c.queue.isEmpty())
+			c.scheduled = false;
+		else
+			ready.add(c);
+	}
+
+	/**
+	 * Takes one request from every connection that has one waiting, then writes the replies.
+	 * <p>
+	 * Requests that use the handler go to the worker, and their connection stays
+	 * out of the ready queue until the reply comes back, so requests from one 
+	 * client are still executed in order.
+	 * </p>
+	 */
+	private void serveRound(){
+		int n = ready.size();
+		for(int i = 0; i < n; i++){
+			final Connection c = ready.poll();
+			if(!c.key.isValid())
+				continue;
+			final Connection.Request r = c.queue.poll();
+			if(usesHandler(r.op)){
+				worker.execute(() -> {
+					completed.add(execute(c, r));
+					selector.wakeup();
+				});
+			}else{
+				execute(c, r).write();
+				reschedule(c);
+			}
+		}
+		for(SelectionKey key : selector.keys()){
+			if(!(key.attachment() instanceof Connection))
+				continue;
+			Connection c = (Connection)key.attachment();
+			try{
+				c.flush();
+				c.updateInterest();
+			}catch(IOException e){
+				disconnect(c);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if a request uses the handler, so has to be executed by the worker.
+	 */
+	private static boolean usesHandler(byte op){
+		switch(op){
+		case Protocol.OP_PING:
+		case Protocol.OP_IS_APPLICATION:
+		case Protocol.OP_DUMP_RECORDER:
+			return false;
+		default:
+			return op >= Protocol.OP_OPEN && op <= Protocol.OP_PRESS_RIGHT;
+		}
+	}
+
+	/**
+	 * Executes a request.
+	 * @return The reply, to be written by the server thread.
+	 */
+	private Reply execute(Connection c, Connection.Request r){
+		ByteBuffer args = r.args;
+		try{
+			switch(r.op){
+			case Protocol.OP_PING:
+				break;
+			case Protocol.OP_OPEN:
+				handler.open(application(args));
+				break;
+			case Protocol.OP_FOCUS:
+				handler.focus(application(args));
+				break;
+			case Protocol.OP_CLOSE:
+				handler.close(application(args));
+				break;
+			case Protocol.OP_IS_OPEN:
+				return new Reply(c, r.id, null, handler.isOpen(application(args)));
+			case Protocol.OP_IS_APPLICATION:
+				return new Reply(c, r.id, null, handler.isApplication(Protocol.getString(args)));
+			case Protocol.OP_LEFT_CLICK:
+				handler.leftClick(Protocol.getString(args));
+				break;
+			case Protocol.OP_RIGHT_CLICK:
+				handler.rightClick(Protocol.getString(args));
+				break;
+			case Protocol.OP_MOUSE_WHEEL_CLICK:
+				handler.mouseWheelClick(Protocol.getString(args));
+				break;
+			case Protocol.OP_TYPE_IN_BOX:
+				String point = Protocol.getString(args);
+				String text = Protocol.getString(args);
+				handler.typeInBox(point, text, args.get() != 0);
+				break;
+			case Protocol.OP_PRESS_UP:
+				handler.pressUp();
+				break;
+			case Protocol.OP_PRESS_DOWN:
+				handler.pressDown();
+				break;
+			case Protocol.OP_PRESS_LEFT:
+				handler.pressLeft();
+				break;
+			case Protocol.OP_PRESS_RIGHT:
+				handler.pressRight();
+				break;
+			case Protocol.OP_DUMP_RECORDER:
+				String path = Protocol.getString(args);
+				try{
+					FlightRecorder.dump(path.isEmpty() ? FlightRecorder.getDefaultFile() : Paths.get(path));
+				}catch(IOException e){
+					return new Reply(c, r.id, e.toString(), null);
+				}
+				break;
+			default:
+				return new Reply(c, r.id, "unknown opcode " + r.op, null);
+			}
+			return new Reply(c, r.id, null, null);
+		}catch(BufferUnderflowException e){
+			return new Reply(c, r.id, "truncated arguments", null);
+		}catch(IllegalArgumentException | IllegalStateException e){
+			// a bad request, or one that makes no sense right now: the client's problem, not ours
+			return new Reply(c, r.id, e.getMessage(), null);
+		}catch(RuntimeException e){
+			FlightRecorder.dumpOnError(e);
+			return new Reply(c, r.id, e.toString(), null);
+		}
+	}
+
+	/**
+	 * Reads an Application name and checks it is in the config file.
+	 */
+	private String application(ByteBuffer args){
+		String name = Protocol.getString(args);
+		if(!handler.isApplication(name))
+			throw new IllegalArgumentException("unknown application " + name);
+		return name;
+	}
+
+	/**
+	 * Starts a server and serves clients until the JVM is stopped.
+	 * @param args The config file and the path of the socket.
+	 * @throws IOException If the socket could not be bound.
+	 */
+	public static void main(String[] args) throws IOException{
+		if(args.length != 2){
+			System.err.println("usage: ControlServer <config> <socket path>");
+			System.exit(2);
+		}
+		// the server owns this JVM, so it can take over crash handling
+		FlightRecorder.installCrashHandler();
+		final ControlServer server = new ControlServer(new ApplicationHandler(args[0]), Paths.get(args[1]));
+		Runtime.getRuntime().addShutdownHook(new Thread(){
+			@Override
+			public void run(){
+				try{
+					server.close();
+				}catch(IOException e){
+				}
+			}
+		});
+		server.run();
+	}
+}
@@ -0,0 +1,120 @@
+package com.joc.jguii.server;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The binary protocol spoken by {@link ControlServer}.
+ * <p>
+ * All numbers are big-endian. Strings are an unsigned short byte count
+ * followed by that many bytes of UTF-8. Booleans are a single byte, 0 or 1.
+ * </p>
+ * <p>
+ * Every request is a frame:
+ * </p>
+ * <pre>
+ * int  length     number of bytes after this field
+ * int  requestId  chosen by the client, echoed in the reply
+ * byte opcode     one of the OP_ constants
+ * ...  arguments  as listed for the opcode
+ * </pre>
+ * <p>
+ * and is answered by exactly one reply:
+ * </p>
+ * <pre>
+ * int  length     number of bytes after this field
+ * int  requestId
+ * byte status     {@link #OK} or {@link #ERROR}
+ * ...  result     a boolean for queries that return one, an error message for ERROR
+ * </pre>
+ * <p>
+ * Clients may send any number of requests without waiting for replies. Requests
+ * from one client are executed and answered in the order they were sent.
+ * Frames longer than {@link #MAX_FRAME} bytes close the connection.
+ * </p>
+ */
+public final class Protocol {
+	/** No arguments, replies OK. */
+	public static final byte OP_PING = 0x00;
+	/** Arguments: string name. Opens or focuses the Application. */
+	public static final byte OP_OPEN = 0x01;
+	/** Arguments: string name. */
+	public static final byte OP_FOCUS = 0x02;
+	/** Arguments: string name. */
+	public static final byte OP_CLOSE = 0x03;
+	/** Arguments: string name. Replies with a boolean. */
+	public static final byte OP_IS_OPEN = 0x04;
+	/** Arguments: string name. Replies with a boolean. */
+	public static final byte OP_IS_APPLICATION = 0x05;
+	/** Arguments: string point name, clicked in the focused Application. */
+	public static final byte OP_LEFT_CLICK = 0x06;
+	/** Arguments: string point name. */
+	public static final byte OP_RIGHT_CLICK = 0x07;
+	/** Arguments: string point name. */
+	public static final byte OP_MOUSE_WHEEL_CLICK = 0x08;
+	/** Arguments: string point name, string text, boolean return. */
+	public static final byte OP_TYPE_IN_BOX = 0x09;
+	/** No arguments. */
+	public static final byte OP_PRESS_UP = 0x0A;
+	/** No arguments. */
+	public static final byte OP_PRESS_DOWN = 0x0B;
+	/** No arguments. */
+	public static final byte OP_PRESS_LEFT = 0x0C;
+	/** No arguments. */
+	public static final byte OP_PRESS_RIGHT = 0x0D;
+	/** Arguments: string path, empty for the default file. Dumps the flight recorder. */
+	public static final byte OP_DUMP_RECORDER = 0x0E;
+
+	/** Status of a request that succeeded. */
+	public static final byte OK = 0;
+	/** Status of a request that failed, followed by a string message. */
+	public static final byte ERROR = 1;
+
+	/**
+	 * Largest frame accepted, not counting the length field.
+	 */
+	public static final int MAX_FRAME = 64 * 1024;
+	/**
+	 * Largest string written in a reply, so an error reply, with its request id, status
+	 * and string length, still fits in {@link #MAX_FRAME}.
+	 */
+	static final int MAX_STRING = MAX_FRAME - 7;
+
+	private Protocol(){
+	}
+
+	/**
+	 * Reads a string from <code>buf</code>.
+	 * @param buf Buffer positioned at the string.
+	 * @return The string.
+	 * @throws BufferUnderflowException If the string runs past the end of the frame.
+	 */
+	static String getString(ByteBuffer buf){
+		int len = buf.getShort() & 0xffff;
+		if(len > buf.remaining())
+			throw new BufferUnderflowException();
+		String s = new String(buf.array(), buf.arrayOffset() + buf.position(), len, StandardCharsets.UTF_8);
+		buf.position(buf.position() + len);
+		return s;
+	}
+
+	/**
+	 * Writes a string to <code>buf</code>, truncating it to {@link #MAX_STRING} bytes.
+	 * <p>
+	 * A truncated string is cut before the character that does not fit, never inside it.
+	 * </p>
+	 * @param buf Buffer to write to.
+	 * @param s The string.
+	 */
+	static void putString(ByteBuffer buf, String s){
+		byte bytes[] = String.valueOf(s).getBytes(StandardCharsets.UTF_8);
+		int len = Math.min(bytes.length, MAX_STRING);
+		// back up over continuation bytes to the start of the character that was cut
+		if(len < bytes.length)
+			while(len > 0 && (bytes[len] & 0xc0) == 0x80)
+				len--;
+		buf.putShort((short)len);
+		buf.put(bytes, 0, len);
+	}
+}
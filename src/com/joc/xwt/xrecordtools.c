@@ -0,0 +1,139 @@
+#include <stdio.h>
+#include <stdlib.h>
+#include <errno.h>
+#include <stdint.h>
+#include <poll.h>
+#include <unistd.h>
+#include "xrecordtools.h"
+#include <X11/Xlib.h>
+#include <X11/Xproto.h>
+#include <X11/extensions/record.h>
+
+/*
+ * Kept apart from xwindowtools since it needs libXtst, so the window
+ * functions still build where only the Xlib headers are installed.
+ */
+
+/*
+ * Click recorder, used by X11ClickRecorder.
+ *
+ * RECORD needs two connections: the context is created and disabled on
+ * "ctrl" and enabled on "data", which then only carries the intercepted
+ * protocol. Only ButtonPress is intercepted, so the recording costs one
+ * small reply per click.
+ */
+
+typedef struct {
+	Display *ctrl, *data;
+	XRecordContext ctx;
+	int wake[2];		/* written to by wakeup() to stop run() */
+	JNIEnv *env;
+	jobject obj;
+	jmethodID dispatch;
+} click_reader;
+
+/*
+ * Called by XRecordProcessReplies for every intercepted event
+ */
+static void record_click(XPointer closure, XRecordInterceptData *d)
+{
+	click_reader *r = (click_reader *)closure;
+	JNIEnv *env = r->env;
+	xEvent *ev;
+	int button;
+
+	if(d->category == XRecordFromServer && d->data_len > 0 && !(*env)->ExceptionCheck(env)){
+		ev = (xEvent *)d->data;
+		button = ev->u.u.detail;
+		if((ev->u.u.type & 0x7f) == ButtonPress && button >= 1 && button <= 3)
+			(*env)->CallVoidMethod(env, r->obj, r->dispatch, (jlong)ev->u.keyButtonPointer.time,
+						(jint)ev->u.keyButtonPointer.rootX, (jint)ev->u.keyButtonPointer.rootY, (jint)button);
+	}
+	XRecordFreeData(d);
+}
+
+JNIEXPORT jlong JNICALL Java_com_joc_jguii_backend_X11ClickRecorder_open(JNIEnv *env, jclass cls)
+{
+	click_reader *r = calloc(1, sizeof(click_reader));
+	XRecordClientSpec clients = XRecordAllClients;
+	XRecordRange *range;
+	int major, minor;
+
+	if(r == NULL)
+		return 0;
+	if((r->ctrl = XOpenDisplay(NULL)) == NULL || (r->data = XOpenDisplay(NULL)) == NULL
+			|| !XRecordQueryVersion(r->ctrl, &major, &minor) || (range = XRecordAllocRange()) == NULL)
+		goto fail;
+	range->device_events.first = ButtonPress;
+	range->device_events.last = ButtonPress;
+	r->ctx = XRecordCreateContext(r->ctrl, 0, &clients, 1, &range, 1);
+	XFree(range);
+	if(r->ctx == 0)
+		goto fail;
+	/* the context has to exist on the server before it is enabled on the other connection */
+	XSync(r->ctrl, False);
+	if(pipe(r->wake) != 0){
+		XRecordFreeContext(r->ctrl, r->ctx);
+		goto fail;
+	}
+	return (jlong)(intptr_t)r;
+
+fail:
+	if(r->data != NULL)
+		XCloseDisplay(r->data);
+	if(r->ctrl != NULL)
+		XCloseDisplay(r->ctrl);
+	free(r);
+	return 0;
+}
+
+JNIEXPORT void JNICALL Java_com_joc_jguii_backend_X11ClickRecorder_run(JNIEnv *env, jobject obj, jlong handle)
+{
+	click_reader *r = (click_reader *)(intptr_t)handle;
+	struct pollfd fds[2];
+
+	r->env = env;
+	r->obj = obj;
+	r->dispatch = (*env)->GetMethodID(env, (*env)->GetObjectClass(env, obj), "dispatch", "(JIII)V");
+	if(r->dispatch == NULL)
+		return;
+	if(!XRecordEnableContextAsync(r->data, r->ctx, record_click, (XPointer)r))
+		return;
+
+	fds[0].fd = ConnectionNumber(r->data);
+	fds[0].events = POLLIN;
+	fds[1].fd = r->wake[0];
+	fds[1].events = POLLIN;
+	for(;;){
+		XRecordProcessReplies(r->data);
+		if((*env)->ExceptionCheck(env))
+			break;
+		if(poll(fds, 2, -1) < 0 && errno != EINTR)
+			break;
+		if(fds[1].revents & POLLIN)
+			break;
+	}
+	XRecordDisableContext(r->ctrl, r->ctx);
+	XSync(r->ctrl, False);
+}
+
+JNIEXPORT void JNICALL Java_com_joc_jguii_backend_X11ClickRecorder_wakeup(JNIEnv *env, jclass cls, jlong handle)
+{
+	click_reader *r = (click_reader *)(intptr_t)handle;
+	char c = 0;
+
+	if(write(r->wake[1], &c, 1) < 0)
+		perror("xrecordtools: wakeup");
+}
+
+JNIEXPORT void JNICALL Java_com_joc_jguii_backend_X11ClickRecorder_free(JNIEnv *env, jclass cls, jlong handle)
+{
+	click_reader *r = (click_reader *)(intptr_t)handle;
+
+	XRecordFreeContext(r->ctrl, r->ctx);
+	XCloseDisplay(r->data);
+	XCloseDisplay(r->ctrl);
+	close(r->wake[0]);
+	close(r->wake[1]);
+	free(r);
+}
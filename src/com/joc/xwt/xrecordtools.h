@@ -0,0 +1,45 @@
+/* DO NOT EDIT THIS FILE - it is machine generated */
+#include <jni.h>
+/* Header for class com_joc_jguii_backend_X11ClickRecorder */
+
+#ifndef _Included_com_joc_jguii_backend_X11ClickRecorder
+#define _Included_com_joc_jguii_backend_X11ClickRecorder
+#ifdef __cplusplus
+extern "C" {
+#endif
+/*
+ * Class:     com_joc_jguii_backend_X11ClickRecorder
+ * Method:    open
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_com_joc_jguii_backend_X11ClickRecorder_open
+  (JNIEnv *, jclass);
+
+/*
+ * Class:     com_joc_jguii_backend_X11ClickRecorder
+ * Method:    run
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_com_joc_jguii_backend_X11ClickRecorder_run
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     com_joc_jguii_backend_X11ClickRecorder
+ * Method:    wakeup
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_com_joc_jguii_backend_X11ClickRecorder_wakeup
+  (JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     com_joc_jguii_backend_X11ClickRecorder
+ * Method:    free
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_com_joc_jguii_backend_X11ClickRecorder_free
+  (JNIEnv *, jclass, jlong);
+
+#ifdef __cplusplus
+}
+#endif
+#endif
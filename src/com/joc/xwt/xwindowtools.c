@@ -1,155 +1,668 @@
 #include <stdio.h>
+#include <stdlib.h>
 #include <string.h>
 #include <ctype.h>
+#include <errno.h>
+#include <stdint.h>
+#include <poll.h>
+#include <unistd.h>
+#include <pthread.h>
+#include <time.h>
 #include "xwindowtools.h"
 #include <X11/Xlib.h>
 #include <X11/Xatom.h>
 
 /*
- * Case insensitive strstr(). Used by window_search to allow case insensitive search
- * Works by copying cs and ct into buffers s1 & s2 and making both buffers lower case
- * Then returns strstr(s1, s2)
+ * Session used by the X11WindowBackend calls.
+ *
+ * All calls share one connection to the X server, opened on first use and
+ * kept for the life of the JVM, instead of opening and closing a connection
+ * per call. Atoms are interned once, and titles are lower cased into fixed
+ * scratch buffers, so a call allocates nothing except the property data
+ * Xlib returns, which is freed before the call returns. Calls are serialised
+ * by a mutex since the connection and buffers are shared.
  */
-char *stristr(const char *cs, const char *ct)
+
+#define MAX_TITLE 4096		/* longest title compared, in bytes, longer titles are cut short */
+
+typedef struct {
+	Display *disp;
+	Window root;
+	Atom client_list, active_window, wm_name, net_wm_name, utf8_string;
+	char search[MAX_TITLE];	/* lower cased search string */
+	char title[MAX_TITLE];	/* lower cased title of the window being compared */
+} session;
+
+static session ses;
+static pthread_mutex_t session_lock = PTHREAD_MUTEX_INITIALIZER;
+
+static Display *reader_display = NULL;
+static Display *ping_display = NULL;
+static XErrorHandler previous_handler = NULL;
+static pthread_once_t handler_once = PTHREAD_ONCE_INIT;
+
+/*
+ * Windows can be destroyed at any time, so errors on the session's, the
+ * pinger's and the event reader's connections are expected and ignored. Errors on other
+ * connections, such as AWT's, go to the previous handler.
+ */
+static int ignore_errors(Display *disp, XErrorEvent *e)
 {
-	int i;
-	char s1[strlen(cs)];
-	char s2[strlen(ct)];
-	strcpy(s1, cs);
-	strcpy(s2, ct);
-	
-	for(i = 0; i < strlen(cs); i++)
-		s1[i] = tolower(s1[i]);
-	s1[i] = '\0';
-	
-	for(i = 0; i < strlen(ct); i++)
-		s2[i] = tolower(s2[i]);
-	s2[i] = '\0';
-	
-	return strstr(s1, s2);
+	if(disp == ses.disp || disp == reader_display || disp == ping_display || previous_handler == NULL)
+		return 0;
+	return previous_handler(disp, e);
+}
+
+static void install_error_handler(void)
+{
+	previous_handler = XSetErrorHandler(ignore_errors);
 }
 
 /*
- * Returns the title of the given window
+ * Throws an IllegalStateException with the given message
  */
-char *window_name(Display *disp, Window window)
+static void throw_state(JNIEnv *env, const char *msg)
 {
-        Atom props = XInternAtom(disp, "WM_NAME", False), type;
-        int form;
-        unsigned long remain, len;
-        unsigned char *list;
+	jclass cls = (*env)->FindClass(env, "java/lang/IllegalStateException");
+	if(cls != NULL)
+		(*env)->ThrowNew(env, cls, msg);
+}
 
-        XGetWindowProperty(disp, window, props, 0, 1024, False, AnyPropertyType,
-                                &type, &form, &len, &remain, &list);
-        return (char*)list;
+/*
+ * Locks the session, opening the connection if it is not open yet.
+ * Returns the session, or NULL with an exception pending and the lock
+ * released if the display cannot be opened.
+ */
+static session *session_lock_open(JNIEnv *env)
+{
+	pthread_mutex_lock(&session_lock);
+	if(ses.disp == NULL){
+		pthread_once(&handler_once, install_error_handler);
+		if((ses.disp = XOpenDisplay(NULL)) == NULL){
+			pthread_mutex_unlock(&session_lock);
+			throw_state(env, "cannot open X display");
+			return NULL;
+		}
+		ses.root = XDefaultRootWindow(ses.disp);
+		ses.client_list = XInternAtom(ses.disp, "_NET_CLIENT_LIST", False);
+		ses.active_window = XInternAtom(ses.disp, "_NET_ACTIVE_WINDOW", False);
+		ses.wm_name = XInternAtom(ses.disp, "WM_NAME", False);
+		ses.net_wm_name = XInternAtom(ses.disp, "_NET_WM_NAME", False);
+		ses.utf8_string = XInternAtom(ses.disp, "UTF8_STRING", False);
+	}
+	return &ses;
+}
+
+static void session_unlock(void)
+{
+	pthread_mutex_unlock(&session_lock);
 }
 
 /*
- * Returns the id of a window which contains the substring search in its title
- * (case insensitive) or -1 if no window is found
+ * Copies at most len bytes of src into dst as lower case, always terminating dst.
+ * dst must hold MAX_TITLE bytes.
  */
-JNIEXPORT jint JNICALL Java_com_joc_jguii_Application_windowSearch(JNIEnv *env, jobject obj, jstring str)
-/*int window_search(const char *search)*/
+static void lower_copy(char *dst, const unsigned char *src, unsigned long len)
 {
-	Display *disp = XOpenDisplay(NULL);
-	Window *wlist;
-	Atom props = XInternAtom(disp, "_NET_CLIENT_LIST", False), type;
-	int form, i, id;
-	unsigned long remain, len;
-	unsigned char *list;
+	unsigned long i;
 
-	const char *search = (*env)->GetStringUTFChars(env, str, 0);
-	
-	
-	XGetWindowProperty(disp, XDefaultRootWindow(disp), props, 0, 1024, False, XA_WINDOW,
-				&type, &form, &len, &remain, &list);
-	wlist = (Window *)list;
-
-	for(i = 0; i < (int)len; i++){
-		if(wlist[i] != 0){
-			if(stristr(window_name(disp, wlist[i]), search) != NULL){
-				id = (int)wlist[i];
-				XFree((char*)wlist);
-				XCloseDisplay(disp);
-				(*env)->ReleaseStringUTFChars(env, str, search);
-				return id;
-			}
+	if(len > MAX_TITLE - 1)
+		len = MAX_TITLE - 1;
+	for(i = 0; i < len && src[i] != '\0'; i++)
+		dst[i] = (char)tolower(src[i]);
+	dst[i] = '\0';
+}
+
+/*
+ * Reads a window's title into s->title, lower cased.
+ * Prefers _NET_WM_NAME and falls back to WM_NAME.
+ * Returns false if the window has no title.
+ */
+static int read_title(session *s, Window window)
+{
+	Atom type;
+	int form;
+	unsigned long len = 0, remain;
+	unsigned char *prop = NULL;
+
+	if(XGetWindowProperty(s->disp, window, s->net_wm_name, 0, MAX_TITLE / 4, False, s->utf8_string,
+				&type, &form, &len, &remain, &prop) != Success || prop == NULL || form != 8 || len == 0){
+		if(prop != NULL)
+			XFree(prop);
+		prop = NULL;
+		if(XGetWindowProperty(s->disp, window, s->wm_name, 0, MAX_TITLE / 4, False, AnyPropertyType,
+					&type, &form, &len, &remain, &prop) != Success || prop == NULL || form != 8){
+			if(prop != NULL)
+				XFree(prop);
+			return 0;
 		}
 	}
-	XFree((char*)wlist);
-	XCloseDisplay(disp);
-	(*env)->ReleaseStringUTFChars(env, str, search);
-	return -1;
+	lower_copy(s->title, prop, len);
+	XFree(prop);
+	return 1;
 }
 
-JNIEXPORT jint JNICALL Java_com_joc_jguii_ApplicationHandler_windowSearch(JNIEnv *env, jobject obj, jstring str)
-/*int window_search(const char *search)*/
+/*
+ * Reads a window valued property of the root window into out, at most max windows.
+ * Returns the number of windows read.
+ */
+static int root_windows(session *s, Atom prop_name, Window *out, int max)
 {
-        Display *disp = XOpenDisplay(NULL);
-        Window *wlist;
-        Atom props = XInternAtom(disp, "_NET_CLIENT_LIST", False), type;
-        int form, i, id;
-        unsigned long remain, len;
-        unsigned char *list;
+	Atom type;
+	int form, i, n = 0;
+	unsigned long len = 0, remain;
+	unsigned char *prop = NULL;
 
-        const char *search = (*env)->GetStringUTFChars(env, str, 0);
+	if(XGetWindowProperty(s->disp, s->root, prop_name, 0, max, False, XA_WINDOW,
+				&type, &form, &len, &remain, &prop) == Success && prop != NULL && form == 32){
+		for(i = 0; i < (int)len && n < max; i++)
+			out[n++] = ((Window *)prop)[i];
+	}
+	if(prop != NULL)
+		XFree(prop);
+	return n;
+}
+
+#define MAX_CLIENTS 1024
 
-        
-        XGetWindowProperty(disp, XDefaultRootWindow(disp), props, 0, 1024, False, XA_WINDOW,
-                                &type, &form, &len, &remain, &list);
-        wlist = (Window *)list;
+/*
+ * Returns the id of a window which contains the substring search in its title
+ * (case insensitive) or -1 if no window is found
+ */
+JNIEXPORT jint JNICALL Java_com_joc_jguii_backend_X11WindowBackend_windowSearch(JNIEnv *env, jobject obj, jstring str)
+{
+	session *s;
+	Window clients[MAX_CLIENTS];
+	jsize utf_len;
+	int i, count, id = -1;
 
-        for(i = 0; i < (int)len; i++){
-                if(wlist[i] != 0){
-                        if(stristr(window_name(disp, wlist[i]), search) != NULL){
-                                id = (int)wlist[i];
-                                XFree((char*)wlist);
-                                XCloseDisplay(disp);
-                                (*env)->ReleaseStringUTFChars(env, str, search);
-                                return id;
-                        }
-                }
+	if(str == NULL){
+		(*env)->ThrowNew(env, (*env)->FindClass(env, "java/lang/NullPointerException"), "search");
+		return -1;
 	}
-        XFree((char*)wlist);
-        XCloseDisplay(disp);
-        (*env)->ReleaseStringUTFChars(env, str, search);
-        return -1;
+	/* a search longer than the longest title compared cannot match */
+	if((utf_len = (*env)->GetStringUTFLength(env, str)) >= MAX_TITLE)
+		return -1;
+	if((s = session_lock_open(env)) == NULL)
+		return -1;
+	(*env)->GetStringUTFRegion(env, str, 0, (*env)->GetStringLength(env, str), s->search);
+	s->search[utf_len] = '\0';
+	lower_copy(s->search, (unsigned char *)s->search, utf_len);
+
+	count = root_windows(s, s->client_list, clients, MAX_CLIENTS);
+	for(i = 0; i < count && id == -1; i++)
+		if(clients[i] != 0 && read_title(s, clients[i]) && strstr(s->title, s->search) != NULL)
+			id = (int)clients[i];
+	session_unlock();
+	return id;
 }
 
 /*
  * Sets the window with id "id" as the focused window and then
  * raises it to the top
  */
-JNIEXPORT void JNICALL Java_com_joc_jguii_Application_setWindowFocus(JNIEnv *env, jobject obj, jint id)
-/*void set_window_focus(int id)*/
+JNIEXPORT void JNICALL Java_com_joc_jguii_backend_X11WindowBackend_setWindowFocus(JNIEnv *env, jobject obj, jint id)
 {
-	Display *disp = XOpenDisplay(NULL);
+	session *s;
 	Window window = (Window)id;
-	XSetInputFocus(disp, window, RevertToParent, CurrentTime);
-	XRaiseWindow(disp, window);
-	XCloseDisplay(disp);
+
+	if((s = session_lock_open(env)) == NULL)
+		return;
+	XSetInputFocus(s->disp, window, RevertToParent, CurrentTime);
+	XRaiseWindow(s->disp, window);
+	XSync(s->disp, False);
+	session_unlock();
 	
 	return;
 }
 
 /*
- * Returns the id of the currently focued window
+ * Returns the id of the currently focued window, or -1 if there is none
  */
-JNIEXPORT jint JNICALL Java_com_joc_jguii_ApplicationHandler_getWindowFocus(JNIEnv *env, jobject obj)
-/*int get_window_focus(void)*/
+JNIEXPORT jint JNICALL Java_com_joc_jguii_backend_X11WindowBackend_getWindowFocus(JNIEnv *env, jobject obj)
 {
-	Display *disp = XOpenDisplay(NULL);
-	Window *window;
-	int revert, form;
-	Atom props = XInternAtom(disp, "_NET_ACTIVE_WINDOW", False), type;
-	unsigned long remain, len;
-	unsigned char *list;
-	
-	XGetWindowProperty(disp, XDefaultRootWindow(disp), props, 0, 1024, False, XA_WINDOW, 
-				&type, &form, &len, &remain, &list);
-	window = (Window *)list;
+	session *s;
+	Window active;
+	int id = -1;
+
+	if((s = session_lock_open(env)) == NULL)
+		return -1;
+	if(root_windows(s, s->active_window, &active, 1) == 1 && active != 0)
+		id = (int)active;
+	session_unlock();
 	
-	return (int)*window;
+	return id;
+}
+
+/*
+ * Writes the absolute position and size of window "id" to geometry[0..3]
+ * Returns false if there is no such window
+ */
+JNIEXPORT jboolean JNICALL Java_com_joc_jguii_backend_X11WindowBackend_windowGeometry(JNIEnv *env, jobject obj, jint id, jintArray geometry)
+{
+	session *s;
+	Window window = (Window)id, child;
+	XWindowAttributes attrs;
+	jint g[4];
+	int ok;
+
+	if((s = session_lock_open(env)) == NULL)
+		return JNI_FALSE;
+	ok = XGetWindowAttributes(s->disp, window, &attrs)
+			&& XTranslateCoordinates(s->disp, window, s->root, 0, 0, &g[0], &g[1], &child);
+	session_unlock();
+	if(!ok)
+		return JNI_FALSE;
+	g[2] = attrs.width;
+	g[3] = attrs.height;
+	(*env)->SetIntArrayRegion(env, geometry, 0, 4, g);
+
+	return JNI_TRUE;
+}
+
+/*
+ * Returns the value of the monotonic clock in nanoseconds
+ */
+static jlong now_nanos(void)
+{
+	struct timespec ts;
+
+	clock_gettime(CLOCK_MONOTONIC, &ts);
+	return (jlong)ts.tv_sec * 1000000000 + ts.tv_nsec;
+}
+
+/*
+ * Pinger used by X11WindowBackend.ping.
+ *
+ * Pings wait for the application, which can take as long as the timeout, so
+ * they have their own connection and lock and never hold up the session. The
+ * root window is only watched on this connection while a ping is outstanding,
+ * and the other events read meanwhile are dropped, so its queue stays empty
+ * between pings.
+ */
+
+typedef struct {
+	Window root;
+	Atom wm_protocols, net_wm_ping;
+	Window window;		/* last window checked for _NET_WM_PING support */
+	int supported;		/* whether window supports it */
+	long serial;		/* sent with each ping to match its reply */
+} pinger;
+
+static pinger png;
+static pthread_mutex_t ping_lock = PTHREAD_MUTEX_INITIALIZER;
+
+/*
+ * Locks the pinger, opening its connection if it is not open yet.
+ * Returns the pinger, or NULL with an exception pending and the lock
+ * released if the display cannot be opened.
+ */
+static pinger *pinger_lock_open(JNIEnv *env)
+{
+	pthread_mutex_lock(&ping_lock);
+	if(ping_display == NULL){
+		pthread_once(&handler_once, install_error_handler);
+		if((ping_display = XOpenDisplay(NULL)) == NULL){
+			pthread_mutex_unlock(&ping_lock);
+			throw_state(env, "cannot open X display");
+			return NULL;
+		}
+		png.root = XDefaultRootWindow(ping_display);
+		png.wm_protocols = XInternAtom(ping_display, "WM_PROTOCOLS", False);
+		png.net_wm_ping = XInternAtom(ping_display, "_NET_WM_PING", False);
+	}
+	return &png;
+}
+
+/*
+ * Returns true if the window lists _NET_WM_PING in WM_PROTOCOLS.
+ * The answer for the last window asked about is kept, since input is
+ * usually paced for the same window many times in a row.
+ */
+static int supports_ping(pinger *p, Window window)
+{
+	Atom *protocols = NULL;
+	int i, count = 0;
+
+	if(window == p->window)
+		return p->supported;
+	p->window = window;
+	p->supported = 0;
+	if(XGetWMProtocols(ping_display, window, &protocols, &count)){
+		for(i = 0; i < count; i++)
+			if(protocols[i] == p->net_wm_ping)
+				p->supported = 1;
+		XFree(protocols);
+	}
+	return p->supported;
+}
+
+/*
+ * Pings the application owning window "id" and waits at most "timeout"
+ * nanoseconds for its reply.
+ *
+ * The application answers _NET_WM_PING from its event loop, after the input
+ * already queued for it, so the time taken is how far behind the application
+ * is. Windows that do not support the protocol get a round trip to the X
+ * server instead.
+ * Returns the nanoseconds until the reply, or -1 if none came in time
+ */
+JNIEXPORT jlong JNICALL Java_com_joc_jguii_backend_X11WindowBackend_ping(JNIEnv *env, jobject obj, jint id, jlong timeout)
+{
+	pinger *p;
+	Display *disp;
+	Window window = (Window)id;
+	XEvent ev;
+	struct pollfd pfd;
+	jlong start, now, deadline, elapsed = -1;
+	long serial;
+
+	if((p = pinger_lock_open(env)) == NULL)
+		return -1;
+	disp = ping_display;
+	start = now_nanos();
+	if(!supports_ping(p, window)){
+		XSync(disp, False);
+		pthread_mutex_unlock(&ping_lock);
+		return now_nanos() - start;
+	}
+
+	serial = ++p->serial;
+	XSelectInput(disp, p->root, SubstructureNotifyMask);
+	memset(&ev, 0, sizeof(ev));
+	ev.xclient.type = ClientMessage;
+	ev.xclient.window = window;
+	ev.xclient.message_type = p->wm_protocols;
+	ev.xclient.format = 32;
+	ev.xclient.data.l[0] = (long)p->net_wm_ping;
+	ev.xclient.data.l[1] = serial;
+	ev.xclient.data.l[2] = (long)window;
+	XSendEvent(disp, window, False, NoEventMask, &ev);
+	XFlush(disp);
+
+	deadline = start + timeout;
+	pfd.fd = ConnectionNumber(disp);
+	pfd.events = POLLIN;
+	while(elapsed == -1){
+		while(XCheckTypedWindowEvent(disp, p->root, ClientMessage, &ev)){
+			if(ev.xclient.message_type == p->wm_protocols && (Atom)ev.xclient.data.l[0] == p->net_wm_ping
+					&& ev.xclient.data.l[1] == serial){
+				elapsed = now_nanos() - start;
+				break;
+			}
+		}
+		if(elapsed != -1 || (now = now_nanos()) >= deadline)
+			break;
+		poll(&pfd, 1, (int)((deadline - now + 999999) / 1000000));
+	}
+
+	/* stop watching the root window and drop what was read while it was watched */
+	XSelectInput(disp, p->root, NoEventMask);
+	XSync(disp, True);
+	pthread_mutex_unlock(&ping_lock);
+	return elapsed;
+}
+
+/*
+ * Window event reader, used by X11WindowEvents.
+ *
+ * The reader has its own connection to the X server and watches the root
+ * window for changes to _NET_CLIENT_LIST and _NET_ACTIVE_WINDOW, and every
+ * client window for title and geometry changes. Each event is decoded once
+ * and passed to X11WindowEvents.dispatch.
+ */
+
+#define MAX_TRACKED 1024
+
+/* must match the ordinals of WindowEvent.Type */
+#define EV_MAPPED		0
+#define EV_UNMAPPED		1
+#define EV_TITLE_CHANGED	2
+#define EV_ACTIVE_CHANGED	3
+#define EV_GEOMETRY_CHANGED	4
+
+typedef struct {
+	Display *disp;
+	Window root;
+	int wake[2];		/* written to by wakeup() to stop run() */
+	Atom client_list, active_window, wm_name, net_wm_name, utf8_string;
+	Window known[MAX_TRACKED];	/* client windows already reported as mapped */
+	int nknown;
+	Window active;
+	JNIEnv *env;
+	jobject obj;
+	jmethodID dispatch;
+} event_reader;
+
+/*
+ * Returns the title of a window as a Java byte[] of UTF-8, or NULL.
+ * Prefers _NET_WM_NAME and falls back to WM_NAME.
+ */
+static jbyteArray title_bytes(event_reader *r, Window w)
+{
+	JNIEnv *env = r->env;
+	Atom type;
+	int form;
+	unsigned long len, remain;
+	unsigned char *prop = NULL;
+	jbyteArray arr;
+
+	if(XGetWindowProperty(r->disp, w, r->net_wm_name, 0, 1024, False, r->utf8_string,
+				&type, &form, &len, &remain, &prop) != Success || prop == NULL || len == 0){
+		if(prop != NULL)
+			XFree(prop);
+		prop = NULL;
+		if(XGetWindowProperty(r->disp, w, r->wm_name, 0, 1024, False, AnyPropertyType,
+					&type, &form, &len, &remain, &prop) != Success || prop == NULL || form != 8){
+			if(prop != NULL)
+				XFree(prop);
+			return NULL;
+		}
+	}
+	arr = (*env)->NewByteArray(env, (jsize)len);
+	if(arr != NULL)
+		(*env)->SetByteArrayRegion(env, arr, 0, (jsize)len, (jbyte *)prop);
+	XFree(prop);
+	return arr;
+}
+
+/*
+ * Calls X11WindowEvents.dispatch, reading the title and geometry of the window if asked to
+ */
+static void dispatch(event_reader *r, int type, Window w, int with_title, int with_geometry)
+{
+	JNIEnv *env = r->env;
+	jbyteArray title = with_title ? title_bytes(r, w) : NULL;
+	XWindowAttributes attrs;
+	Window child;
+	int x = 0, y = 0, width = 0, height = 0;
+
+	if(with_geometry && XGetWindowAttributes(r->disp, w, &attrs)){
+		width = attrs.width;
+		height = attrs.height;
+		XTranslateCoordinates(r->disp, w, r->root, 0, 0, &x, &y, &child);
+	}
+	(*env)->CallVoidMethod(env, r->obj, r->dispatch, (jint)type, (jint)w, title,
+				(jint)x, (jint)y, (jint)width, (jint)height);
+	if(title != NULL)
+		(*env)->DeleteLocalRef(env, title);
+}
+
+static int is_known(event_reader *r, Window w)
+{
+	int i;
+	for(i = 0; i < r->nknown; i++)
+		if(r->known[i] == w)
+			return 1;
+	return 0;
+}
+
+/*
+ * Compares _NET_CLIENT_LIST with the windows already reported and reports the differences
+ */
+static void sync_clients(event_reader *r)
+{
+	Atom type;
+	int form, i, j, found, ncurrent = 0;
+	unsigned long len = 0, remain;
+	unsigned char *prop = NULL;
+	Window current[MAX_TRACKED];
+
+	if(XGetWindowProperty(r->disp, r->root, r->client_list, 0, MAX_TRACKED, False, XA_WINDOW,
+				&type, &form, &len, &remain, &prop) == Success && prop != NULL){
+		for(i = 0; i < (int)len && ncurrent < MAX_TRACKED; i++)
+			if(((Window *)prop)[i] != 0)
+				current[ncurrent++] = ((Window *)prop)[i];
+	}
+	if(prop != NULL)
+		XFree(prop);
+
+	for(i = 0; i < r->nknown; i++){
+		for(found = 0, j = 0; j < ncurrent && !found; j++)
+			found = current[j] == r->known[i];
+		if(!found)
+			dispatch(r, EV_UNMAPPED, r->known[i], 0, 0);
+	}
+	for(i = 0; i < ncurrent; i++){
+		if(!is_known(r, current[i])){
+			XSelectInput(r->disp, current[i], PropertyChangeMask | StructureNotifyMask);
+			dispatch(r, EV_MAPPED, current[i], 1, 1);
+		}
+	}
+	memcpy(r->known, current, ncurrent * sizeof(Window));
+	r->nknown = ncurrent;
+}
+
+/*
+ * Reports a change of _NET_ACTIVE_WINDOW
+ */
+static void sync_active(event_reader *r)
+{
+	Atom type;
+	int form;
+	unsigned long len = 0, remain;
+	unsigned char *prop = NULL;
+	Window active = 0;
+
+	if(XGetWindowProperty(r->disp, r->root, r->active_window, 0, 1, False, XA_WINDOW,
+				&type, &form, &len, &remain, &prop) == Success && prop != NULL && len > 0)
+		active = *(Window *)prop;
+	if(prop != NULL)
+		XFree(prop);
+	if(active != r->active){
+		r->active = active;
+		dispatch(r, EV_ACTIVE_CHANGED, active, 0, 0);
+	}
+}
+
+static void handle_event(event_reader *r, XEvent *ev)
+{
+	switch(ev->type){
+	case PropertyNotify:
+		if(ev->xproperty.window == r->root){
+			if(ev->xproperty.atom == r->client_list)
+				sync_clients(r);
+			else if(ev->xproperty.atom == r->active_window)
+				sync_active(r);
+		}else if(ev->xproperty.atom == r->wm_name || ev->xproperty.atom == r->net_wm_name){
+			if(is_known(r, ev->xproperty.window))
+				dispatch(r, EV_TITLE_CHANGED, ev->xproperty.window, 1, 0);
+		}
+		break;
+	case ConfigureNotify:
+		if(ev->xconfigure.event == ev->xconfigure.window && is_known(r, ev->xconfigure.window))
+			dispatch(r, EV_GEOMETRY_CHANGED, ev->xconfigure.window, 0, 1);
+		break;
+	case MapNotify:
+	case UnmapNotify:
+	case DestroyNotify:
+		/* top level windows changed, pick up a client list the window manager has not announced yet */
+		if(ev->xany.window == r->root)
+			sync_clients(r);
+		break;
+	}
+}
+
+JNIEXPORT jlong JNICALL Java_com_joc_jguii_backend_X11WindowEvents_open(JNIEnv *env, jclass cls)
+{
+	event_reader *r = calloc(1, sizeof(event_reader));
+
+	if(r == NULL)
+		return 0;
+	if((r->disp = XOpenDisplay(NULL)) == NULL){
+		free(r);
+		return 0;
+	}
+	if(pipe(r->wake) != 0){
+		XCloseDisplay(r->disp);
+		free(r);
+		return 0;
+	}
+	pthread_once(&handler_once, install_error_handler);
+	reader_display = r->disp;
+	r->root = XDefaultRootWindow(r->disp);
+	r->client_list = XInternAtom(r->disp, "_NET_CLIENT_LIST", False);
+	r->active_window = XInternAtom(r->disp, "_NET_ACTIVE_WINDOW", False);
+	r->wm_name = XInternAtom(r->disp, "WM_NAME", False);
+	r->net_wm_name = XInternAtom(r->disp, "_NET_WM_NAME", False);
+	r->utf8_string = XInternAtom(r->disp, "UTF8_STRING", False);
+	return (jlong)(intptr_t)r;
+}
+
+JNIEXPORT void JNICALL Java_com_joc_jguii_backend_X11WindowEvents_run(JNIEnv *env, jobject obj, jlong handle)
+{
+	event_reader *r = (event_reader *)(intptr_t)handle;
+	struct pollfd fds[2];
+	XEvent ev;
+
+	r->env = env;
+	r->obj = obj;
+	r->dispatch = (*env)->GetMethodID(env, (*env)->GetObjectClass(env, obj), "dispatch", "(II[BIIII)V");
+	if(r->dispatch == NULL)
+		return;
+
+	XSelectInput(r->disp, r->root, SubstructureNotifyMask | PropertyChangeMask);
+	sync_clients(r);
+	sync_active(r);
+	XFlush(r->disp);
+
+	fds[0].fd = ConnectionNumber(r->disp);
+	fds[0].events = POLLIN;
+	fds[1].fd = r->wake[0];
+	fds[1].events = POLLIN;
+	for(;;){
+		while(XPending(r->disp)){
+			XNextEvent(r->disp, &ev);
+			handle_event(r, &ev);
+			if((*env)->ExceptionCheck(env))
+				return;
+		}
+		if(poll(fds, 2, -1) < 0 && errno != EINTR)
+			return;
+		if(fds[1].revents & POLLIN)
+			return;
+	}
+}
+
+JNIEXPORT void JNICALL Java_com_joc_jguii_backend_X11WindowEvents_wakeup(JNIEnv *env, jclass cls, jlong handle)
+{
+	event_reader *r = (event_reader *)(intptr_t)handle;
+	char c = 0;
+
+	if(write(r->wake[1], &c, 1) < 0)
+		perror("xwindowtools: wakeup");
+}
+
+JNIEXPORT void JNICALL Java_com_joc_jguii_backend_X11WindowEvents_free(JNIEnv *env, jclass cls, jlong handle)
+{
+	event_reader *r = (event_reader *)(intptr_t)handle;
+
+	XCloseDisplay(r->disp);
+	if(reader_display == r->disp)
+		reader_display = NULL;
+	close(r->wake[0]);
+	close(r->wake[1]);
+	free(r);
 }
 
 int main(void){}
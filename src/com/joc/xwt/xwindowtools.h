@@ -1,109 +1,95 @@
 /* DO NOT EDIT THIS FILE - it is machine generated */
 #include <jni.h>
-/* Header for class com_joc_jguii_Application */
+/* Header for class com_joc_jguii_backend_X11WindowBackend */
 
-#ifndef _Included_com_joc_jguii_Application
-#define _Included_com_joc_jguii_Application
+#ifndef _Included_com_joc_jguii_backend_X11WindowBackend
+#define _Included_com_joc_jguii_backend_X11WindowBackend
 #ifdef __cplusplus
 extern "C" {
 #endif
 /*
- * Class:     com_joc_jguii_Application
+ * Class:     com_joc_jguii_backend_X11WindowBackend
  * Method:    windowSearch
  * Signature: (Ljava/lang/String;)I
  */
-JNIEXPORT jint JNICALL Java_com_joc_jguii_Application_windowSearch
+JNIEXPORT jint JNICALL Java_com_joc_jguii_backend_X11WindowBackend_windowSearch
   (JNIEnv *, jobject, jstring);
 
 /*
- * Class:     com_joc_jguii_Application
+ * Class:     com_joc_jguii_backend_X11WindowBackend
  * Method:    setWindowFocus
  * Signature: (I)V
  */
-JNIEXPORT void JNICALL Java_com_joc_jguii_Application_setWindowFocus
+JNIEXPORT void JNICALL Java_com_joc_jguii_backend_X11WindowBackend_setWindowFocus
   (JNIEnv *, jobject, jint);
 
-#ifdef __cplusplus
-}
-#endif
-#endif
-/* Header for class com_joc_jguii_ApplicationHandler */
+/*
+ * Class:     com_joc_jguii_backend_X11WindowBackend
+ * Method:    getWindowFocus
+ * Signature: ()I
+ */
+JNIEXPORT jint JNICALL Java_com_joc_jguii_backend_X11WindowBackend_getWindowFocus
+  (JNIEnv *, jobject);
 
-#ifndef _Included_com_joc_jguii_ApplicationHandler
-#define _Included_com_joc_jguii_ApplicationHandler
-#ifdef __cplusplus
-extern "C" {
-#endif
 /*
- * Class:     com_joc_jguii_ApplicationHandler
- * Method:    windowSearch
- * Signature: (Ljava/lang/String;)I
+ * Class:     com_joc_jguii_backend_X11WindowBackend
+ * Method:    windowGeometry
+ * Signature: (I[I)Z
  */
-JNIEXPORT jint JNICALL Java_com_joc_jguii_ApplicationHandler_windowSearch
-  (JNIEnv *, jobject, jstring);
+JNIEXPORT jboolean JNICALL Java_com_joc_jguii_backend_X11WindowBackend_windowGeometry
+  (JNIEnv *, jobject, jint, jintArray);
 
 /*
- * Class:     com_joc_jguii_ApplicationHandler
- * Method:    getWindowFocus
- * Signature: ()I
+ * Class:     com_joc_jguii_backend_X11WindowBackend
+ * Method:    ping
+ * Signature: (IJ)J
  */
-JNIEXPORT jint JNICALL Java_com_joc_jguii_ApplicationHandler_getWindowFocus
-  (JNIEnv *, jobject);
+JNIEXPORT jlong JNICALL Java_com_joc_jguii_backend_X11WindowBackend_ping
+  (JNIEnv *, jobject, jint, jlong);
 
 #ifdef __cplusplus
 }
 #endif
 #endif
-/* Header for class com_joc_jguii_ConfigHandler */
+/* Header for class com_joc_jguii_backend_X11WindowEvents */
 
-#ifndef _Included_com_joc_jguii_ConfigHandler
-#define _Included_com_joc_jguii_ConfigHandler
+#ifndef _Included_com_joc_jguii_backend_X11WindowEvents
+#define _Included_com_joc_jguii_backend_X11WindowEvents
 #ifdef __cplusplus
 extern "C" {
 #endif
-#undef com_joc_jguii_ConfigHandler_maxSkipBufferSize
-#define com_joc_jguii_ConfigHandler_maxSkipBufferSize 8192L
-#undef com_joc_jguii_ConfigHandler_INVALIDATED
-#define com_joc_jguii_ConfigHandler_INVALIDATED -2L
-#undef com_joc_jguii_ConfigHandler_UNMARKED
-#define com_joc_jguii_ConfigHandler_UNMARKED -1L
-#ifdef __cplusplus
-}
-#endif
-#endif
-/* Header for class com_joc_jguii_InteractionHandler */
+/*
+ * Class:     com_joc_jguii_backend_X11WindowEvents
+ * Method:    open
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_com_joc_jguii_backend_X11WindowEvents_open
+  (JNIEnv *, jclass);
 
-#ifndef _Included_com_joc_jguii_InteractionHandler
-#define _Included_com_joc_jguii_InteractionHandler
-#ifdef __cplusplus
-extern "C" {
-#endif
-#undef com_joc_jguii_InteractionHandler_MAX_DELAY
-#define com_joc_jguii_InteractionHandler_MAX_DELAY 60000L
-#ifdef __cplusplus
-}
-#endif
-#endif
-/* Header for class com_joc_jguii_NamedPoint */
+/*
+ * Class:     com_joc_jguii_backend_X11WindowEvents
+ * Method:    run
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_com_joc_jguii_backend_X11WindowEvents_run
+  (JNIEnv *, jobject, jlong);
 
-#ifndef _Included_com_joc_jguii_NamedPoint
-#define _Included_com_joc_jguii_NamedPoint
-#ifdef __cplusplus
-extern "C" {
-#endif
-#undef com_joc_jguii_NamedPoint_serialVersionUID
-#define com_joc_jguii_NamedPoint_serialVersionUID -5276940640259749850LL
-#ifdef __cplusplus
-}
-#endif
-#endif
-/* Header for class com_joc_jguii_Test */
+/*
+ * Class:     com_joc_jguii_backend_X11WindowEvents
+ * Method:    wakeup
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_com_joc_jguii_backend_X11WindowEvents_wakeup
+  (JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     com_joc_jguii_backend_X11WindowEvents
+ * Method:    free
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_com_joc_jguii_backend_X11WindowEvents_free
+  (JNIEnv *, jclass, jlong);
 
-#ifndef _Included_com_joc_jguii_Test
-#define _Included_com_joc_jguii_Test
-#ifdef __cplusplus
-extern "C" {
-#endif
 #ifdef __cplusplus
 }
 #endif